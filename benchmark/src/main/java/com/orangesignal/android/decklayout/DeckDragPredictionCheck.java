@@ -0,0 +1,215 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+/**
+ * 保存したドラッグのタッチ座標の列を {@link DeckDragPredictor} へ与え、予測の精度とデッキカードの左端の制限を検査します。<p>
+ * 各タッチ座標の時点で予測時間だけ先の指の座標を予測し、列から補間した実際の座標との誤差を求めます。
+ * 誤差の平均が上限を超えた場合、または予測しない場合 (最新の座標をそのまま使用する場合) の誤差を十分に下回らない場合は失敗します。
+ * また、{@link Deck} と同じ手順で予測による仮の移動を {@link DeckGeometry} で算出し、
+ * デッキカードの左端が左端の最小値より左へ移動しないこと、仮の移動を破棄した後に座標が変わらないことを確認します。
+ * いずれかを満たさない場合は異常終了するため、{@code gradle -p benchmark check} が失敗します。
+ *
+ *   gradle -p benchmark dragPredictionCheck
+ *
+ * @author Koji Sugisawa
+ */
+public final class DeckDragPredictionCheck {
+
+	private static final String GESTURES = "drag-gestures.txt";
+
+	private static final int CARDS = 10;
+	private static final float MAX_DISTANCE = 48F;
+
+	/**
+	 * 予測の誤差の平均 (ピクセル) の上限です。保存した列での値 (約 6.1 ピクセル) に余裕を持たせています。
+	 */
+	private static final double MAX_MEAN_ERROR = 7.0;
+
+	/**
+	 * 予測しない場合の誤差に対する、予測の誤差の比率の上限です。
+	 */
+	private static final double MAX_ERROR_RATIO = 0.55;
+
+	public static void main(final String[] args) throws IOException {
+		final ArrayList<long[]> times = new ArrayList<long[]>();
+		final ArrayList<float[]> xs = new ArrayList<float[]>();
+		load(times, xs);
+
+		final DeckDragPredictor predictor = new DeckDragPredictor(DeckDragPredictor.DEFAULT_PREDICTION_TIME, MAX_DISTANCE);
+		final int predictionTime = predictor.getPredictionTime();
+		double predictedError = 0;
+		double heldError = 0;
+		int samples = 0;
+		for (int g = 0; g < times.size(); g++) {
+			final long[] t = times.get(g);
+			final float[] x = xs.get(g);
+			final StandInDeck deck = new StandInDeck(CARDS);
+			predictor.reset();
+			float lastX = x[0];
+			float pendingX = 0F;
+			for (int i = 0; i < t.length; i++) {
+				predictor.addSample(t[i], x[i]);
+				final float predicted = predictor.predict(t[i]);
+				if (Math.abs(predicted - x[i]) > MAX_DISTANCE + 0.001F) {
+					fail("gesture " + g + " at " + t[i] + "ms extrapolated " + (predicted - x[i]) + "px beyond the " + MAX_DISTANCE + "px limit");
+				}
+
+				final long target = t[i] + predictionTime;
+				if (target <= t[t.length - 1]) {
+					final float actual = interpolate(t, x, target);
+					predictedError += Math.abs(predicted - actual);
+					heldError += Math.abs(x[i] - actual);
+					samples++;
+				}
+
+				// Deck#applyPendingDrag(boolean) と同じ手順で、実際の移動量を確定してから予測による仮の移動を算出します。
+				pendingX += lastX - x[i];
+				lastX = x[i];
+				final int deltaX = (int) pendingX;
+				pendingX -= deltaX;
+				if (deltaX != 0) {
+					deck.geometry.drag(deltaX);
+					deck.apply();
+				}
+				final String error = predictDrag(deck.geometry, (int) (pendingX + lastX - predicted));
+				if (error != null) {
+					fail("gesture " + g + " at " + t[i] + "ms: " + error);
+				}
+			}
+		}
+
+		final double meanPredicted = predictedError / samples;
+		final double meanHeld = heldError / samples;
+		System.out.println("gestures=" + times.size() + " samples=" + samples
+				+ " error.predicted=" + String.format("%.2f", meanPredicted) + "px"
+				+ " error.held=" + String.format("%.2f", meanHeld) + "px");
+		if (meanPredicted > MAX_MEAN_ERROR) {
+			fail("the mean prediction error " + meanPredicted + "px exceeds " + MAX_MEAN_ERROR + "px");
+		}
+		if (meanPredicted > meanHeld * MAX_ERROR_RATIO) {
+			fail("the mean prediction error " + meanPredicted + "px is not below " + MAX_ERROR_RATIO + " of the unpredicted error " + meanHeld + "px");
+		}
+	}
+
+	/**
+	 * {@code Deck#predictDrag(DeckDragPredictor)} と同じ手順で予測による仮の移動先座標を算出して破棄し、左端の制限を確認します。
+	 *
+	 * @return 制限を満たさない場合はその内容。満たす場合は {@code null}
+	 */
+	private static String predictDrag(final DeckGeometry geometry, final int deltaX) {
+		if (deltaX == 0) {
+			return null;
+		}
+		final int size = geometry.size();
+		final float[] before = new float[size];
+		for (int i = 0; i < size; i++) {
+			before[i] = geometry.getX(i);
+		}
+		geometry.drag(deltaX);
+		for (int i = 0; i < size; i++) {
+			final float left = geometry.getTargetX(i) + StandInDeck.CARD_PADDING;
+			if (left < StandInDeck.MIN_LEFT_MOST) {
+				return "card " + i + " was predicted at left " + left + " beyond the minimum left " + StandInDeck.MIN_LEFT_MOST;
+			}
+		}
+		geometry.discard();
+		for (int i = 0; i < size; i++) {
+			if (geometry.getX(i) != before[i] || geometry.getTargetX(i) != before[i]) {
+				return "card " + i + " moved from " + before[i] + " to " + geometry.getX(i) + " after the prediction was discarded";
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 指定された時刻の X 座標をタッチ座標の列から線形補間して返します。
+	 */
+	private static float interpolate(final long[] t, final float[] x, final long time) {
+		int i = 1;
+		while (t[i] < time) {
+			i++;
+		}
+		if (t[i] == t[i - 1]) {
+			return x[i];
+		}
+		return x[i - 1] + (x[i] - x[i - 1]) * (time - t[i - 1]) / (t[i] - t[i - 1]);
+	}
+
+	/**
+	 * タッチ座標の列を読み込みます。空行でジェスチャーを区切り、{@code #} で始まる行は無視します。
+	 */
+	private static void load(final ArrayList<long[]> times, final ArrayList<float[]> xs) throws IOException {
+		final InputStream in = DeckDragPredictionCheck.class.getResourceAsStream(GESTURES);
+		if (in == null) {
+			fail(GESTURES + " was not found");
+		}
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+		try {
+			final ArrayList<String> lines = new ArrayList<String>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.startsWith("#")) {
+					continue;
+				}
+				if (line.isEmpty()) {
+					add(lines, times, xs);
+				} else {
+					lines.add(line);
+				}
+			}
+			add(lines, times, xs);
+		} finally {
+			reader.close();
+		}
+		if (times.isEmpty()) {
+			fail(GESTURES + " contains no gestures");
+		}
+	}
+
+	private static void add(final ArrayList<String> lines, final ArrayList<long[]> times, final ArrayList<float[]> xs) {
+		if (lines.size() < 2) {
+			lines.clear();
+			return;
+		}
+		final long[] t = new long[lines.size()];
+		final float[] x = new float[lines.size()];
+		for (int i = 0; i < t.length; i++) {
+			final String[] fields = lines.get(i).split("\\s+");
+			t[i] = Long.parseLong(fields[0]);
+			x[i] = Float.parseFloat(fields[1]);
+		}
+		times.add(t);
+		xs.add(x);
+		lines.clear();
+	}
+
+	private static void fail(final String message) {
+		System.err.println("DeckDragPredictor: " + message);
+		System.exit(1);
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 20 枚のデッキカードのフリングを繰り返しても、定常状態ではアニメーションのためのオブジェクトが生成されないことを検査します。<p>
+ * {@code DeckAnimationDriver} はデッキカード毎にアニメーターを生成せず、単一のクロックと {@link DeckAnimationTracks} の配列でアニメーションを駆動します。
+ * ここではすべてのデッキカードをバネとバウンドで移動させるフリングを {@code DeckAnimationDriver} と同じ手順で繰り返し、
+ * 定常状態となった後のフリングの列でメモリが割り当てられないこと、配列の容量が増えないこと、
+ * 各フリングの終了時にアニメーション中のデッキカードが残らないことを確認します。
+ * いずれかを満たさない場合は異常終了するため、{@code gradle -p benchmark check} が失敗します。
+ *
+ *   gradle -p benchmark flingSteadyStateCheck
+ *
+ * @author Koji Sugisawa
+ */
+public final class DeckFlingSteadyStateCheck implements DeckAnimationTracks.Target<StandInDeck.Child> {
+
+	private static final int CARDS = 20;
+	private static final int FRAME_INTERVAL = 16;
+	private static final float VELOCITY = 4000F;
+	private static final int BOUNCE = 20;
+	private static final int BOUNCE_DURATION = 200;
+
+	private static final int WARMUP_FLINGS = 5000;
+	private static final int MEASURED_FLINGS = 1000;
+
+	private final StandInDeck.Child[] mCards = new StandInDeck.Child[CARDS];
+	private final DeckAnimationTracks<StandInDeck.Child> mTracks = new DeckAnimationTracks<StandInDeck.Child>();
+
+	/**
+	 * 模倣するフリングの時刻 (ミリ秒) を保持します。
+	 */
+	private long mTime;
+
+	private DeckFlingSteadyStateCheck() {
+		for (int i = 0; i < CARDS; i++) {
+			mCards[i] = new StandInDeck.Child(true, StandInDeck.MIN_LEFT_MOST, StandInDeck.CARD_WIDTH, StandInDeck.CARD_PADDING);
+		}
+	}
+
+	public static void main(final String[] args) {
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long thread = Thread.currentThread().getId();
+		final DeckFlingSteadyStateCheck check = new DeckFlingSteadyStateCheck();
+
+		check.run(WARMUP_FLINGS);
+		final int capacity = check.mTracks.capacity();
+
+		// 割り当て量の取得自体による割り当てを差し引きます。
+		final long overheadStart = threads.getThreadAllocatedBytes(thread);
+		final long overhead = threads.getThreadAllocatedBytes(thread) - overheadStart;
+
+		final long start = threads.getThreadAllocatedBytes(thread);
+		check.run(MEASURED_FLINGS);
+		final long allocated = threads.getThreadAllocatedBytes(thread) - start - overhead;
+
+		System.out.println("flings=" + MEASURED_FLINGS + " cards=" + CARDS + " allocated=" + allocated + " bytes"
+				+ " capacity=" + check.mTracks.capacity());
+		if (allocated > 0L) {
+			System.err.println("Flinging " + CARDS + " cards allocated " + allocated + " bytes in steady state.");
+			System.exit(1);
+		}
+		if (check.mTracks.capacity() != capacity) {
+			System.err.println("The animation tracks grew from " + capacity + " to " + check.mTracks.capacity() + " in steady state.");
+			System.exit(1);
+		}
+	}
+
+	private void run(final int flings) {
+		for (int i = 0; i < flings; i++) {
+			if (!fling((i & 1) == 0)) {
+				System.err.println("Cards were still animating after fling " + i + ".");
+				System.exit(1);
+			}
+		}
+	}
+
+	/**
+	 * すべてのデッキカードを左右へフリングし、落ち着くまでフレームを進めます。
+	 *
+	 * @return アニメーション中のデッキカードが残っていない場合は {@code true}
+	 */
+	private boolean fling(final boolean left) {
+		final DeckAnimationTracks<StandInDeck.Child> tracks = mTracks;
+		final float velocity = left ? -VELOCITY : VELOCITY;
+		final float distance = DeckFlingPhysics.restDistance(velocity);
+		for (int i = 0; i < CARDS; i++) {
+			final StandInDeck.Child card = mCards[i];
+			final float startX = card.x;
+			final float endX = startX + distance;
+			final int track = tracks.add(card, mTime, startX, endX, DeckFlingPhysics.settleDuration(startX - endX, velocity), false);
+			tracks.setSpring(track, velocity);
+		}
+		// 最も背面のデッキカードはバネで落ち着いた後にバウンドさせます (DeckAnimationDriver#bounce(View, int, int, int))。
+		final StandInDeck.Child bounceCard = mCards[0];
+		final int track = tracks.indexOf(bounceCard);
+		if (!tracks.canBounce(track)) {
+			tracks.add(bounceCard, mTime, tracks.getEndX(track), tracks.getEndX(track), 0, false);
+		}
+		tracks.setBounce(track, left ? -BOUNCE : BOUNCE, BOUNCE_DURATION);
+
+		for (int frames = 0; tracks.size() > 0 && frames < 10000; frames++) {
+			mTime += FRAME_INTERVAL;
+			tracks.update(mTime, this);
+		}
+		return tracks.size() == 0;
+	}
+
+	@Override
+	public void setX(final StandInDeck.Child card, final float x) {
+		card.x = x;
+	}
+
+}
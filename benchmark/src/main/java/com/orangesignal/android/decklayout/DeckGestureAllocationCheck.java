@@ -0,0 +1,207 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * {@link Deck} のジェスチャーのホットパスがメモリを割り当てないことを検査します。<p>
+ * ACTION_DOWN から ACTION_UP までのドラッグと、それに続く遷移アニメーションのフレームを {@link Deck} と同じ手順で実行し、
+ * 十分に実行して定常状態となった後のジェスチャーの列で割り当てられたメモリの量をスレッド毎の割り当て量で数えます。
+ * ドラッグは {@link DeckGeometry} と {@link DeckDragPredictor} で、予測による仮の移動とその取り消しを含めて、
+ * 遷移アニメーションは {@code DeckAnimationDriver} が使用する {@link DeckAnimationTracks} でフレーム毎の座標の算出と終了したデッキカードの除去を行います。
+ * メモリが割り当てられた場合は異常終了するため、{@code gradle -p benchmark check} が失敗します。<p>
+ * ビューに依存する部分 ({@code VelocityTracker}、{@code ViewTreeObserver} による描画直前の呼び出し、
+ * {@code DeckAnimationDriver} のクロックとなる {@code ValueAnimator}、{@code View#setX(float)}) は Android の実機でのみ確認できるため、
+ * ここでは対象としません。
+ *
+ *   gradle -p benchmark allocationCheck
+ *
+ * @author Koji Sugisawa
+ */
+public final class DeckGestureAllocationCheck implements DeckAnimationTracks.Target<StandInDeck.Child> {
+
+	private static final int CARDS = 10;
+	private static final int MOVES = 30;
+	private static final int MOVE_INTERVAL = 8;
+	private static final int MOVE_DISTANCE = 6;
+	private static final int FRAME_INTERVAL = 16;
+	private static final int BOUNCE_DURATION = 200;
+
+	private static final int WARMUP_GESTURES = 20000;
+	private static final int MEASURED_GESTURES = 2000;
+
+	private final StandInDeck mDeck = new StandInDeck(CARDS);
+	private final DeckDragPredictor mPredictor = new DeckDragPredictor(DeckDragPredictor.DEFAULT_PREDICTION_TIME, 48F);
+	private final DeckAnimationTracks<StandInDeck.Child> mTracks = new DeckAnimationTracks<StandInDeck.Child>();
+	private final DeckMetricsRecorder mMetrics = new DeckMetricsRecorder();
+
+	/**
+	 * 模倣するジェスチャーの時刻 (ミリ秒) を保持します。
+	 */
+	private long mTime;
+
+	/**
+	 * 予測した指の座標へデッキカードを仮に移動させているかどうかを保持します。
+	 */
+	private boolean mPredicted;
+
+	public static void main(final String[] args) {
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long thread = Thread.currentThread().getId();
+		final DeckGestureAllocationCheck check = new DeckGestureAllocationCheck();
+
+		check.run(WARMUP_GESTURES);
+
+		// 割り当て量の取得自体による割り当てを差し引きます。
+		final long overheadStart = threads.getThreadAllocatedBytes(thread);
+		final long overhead = threads.getThreadAllocatedBytes(thread) - overheadStart;
+
+		final long start = threads.getThreadAllocatedBytes(thread);
+		check.run(MEASURED_GESTURES);
+		final long allocated = threads.getThreadAllocatedBytes(thread) - start - overhead;
+
+		System.out.println("gestures=" + MEASURED_GESTURES + " allocated=" + allocated + " bytes"
+				+ " drag.p90=" + check.mMetrics.getSectionHistogram(DeckMetrics.SECTION_DRAG).getPercentile(90) + "ns");
+		if (allocated > 0L) {
+			System.err.println("The deck gesture path allocated " + allocated + " bytes in steady state.");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * 左へのドラッグと次のデッキカードへの遷移、右へのドラッグと前のデッキカードへのフリングを交互に行います。
+	 */
+	private void run(final int gestures) {
+		for (int i = 0; i < gestures; i++) {
+			gesture((i & 1) == 0);
+		}
+	}
+
+	private void gesture(final boolean left) {
+		final StandInDeck deck = mDeck;
+		final DeckGeometry geometry = deck.geometry;
+		final DeckDragPredictor predictor = mPredictor;
+		final DeckAnimationTracks<StandInDeck.Child> tracks = mTracks;
+		final DeckMetricsRecorder metrics = mMetrics;
+		final int delta = left ? MOVE_DISTANCE : -MOVE_DISTANCE;
+
+		// ACTION_DOWN
+		float x = StandInDeck.WIDTH / 2F;
+		predictor.reset();
+		predictor.addSample(mTime, x);
+
+		// ACTION_MOVE と、描画の直前の移動量の反映 (Deck#applyPendingDrag(boolean))
+		for (int i = 0; i < MOVES; i++) {
+			mTime += MOVE_INTERVAL;
+			x -= delta;
+			predictor.addSample(mTime, x);
+			final long start = System.nanoTime();
+			restorePredicted();
+			geometry.drag(delta);
+			deck.apply();
+			predict((int) (x - predictor.predict(mTime)));
+			metrics.onSection(DeckMetrics.SECTION_DRAG, System.nanoTime() - start);
+		}
+
+		// ACTION_UP
+		restorePredicted();
+		final float velocity = predictor.getVelocity() * 1000F;
+		if (left) {
+			geometry.next();
+		} else {
+			geometry.previous(geometry.getPreviousCards(DeckFlingPhysics.restDistance(velocity)));
+		}
+		final int size = geometry.size();
+		for (int i = 0; i < size; i++) {
+			if (geometry.isAnimated(i)) {
+				final StandInDeck.Child child = deck.children[geometry.getChildPosition(i)];
+				final float startX = geometry.getX(i);
+				final float endX = geometry.getTargetX(i);
+				if (left) {
+					tracks.add(child, mTime, startX, endX, DeckGeometry.duration(startX, endX), false);
+				} else {
+					final int card = tracks.add(child, mTime, startX, endX, DeckFlingPhysics.settleDuration(startX - endX, velocity), false);
+					tracks.setSpring(card, velocity);
+				}
+			}
+		}
+		final int bounceCard = geometry.getBounceCard();
+		if (left && bounceCard != DeckGeometry.NO_CARD) {
+			final int card = tracks.indexOf(deck.children[geometry.getChildPosition(bounceCard)]);
+			if (card != DeckAnimationTracks.NOT_FOUND && tracks.canBounce(card)) {
+				tracks.setBounce(card, geometry.getBounceDistance(), BOUNCE_DURATION);
+			}
+		}
+		geometry.commit();
+
+		// 遷移アニメーション (DeckAnimationDriver#onAnimationUpdate(ValueAnimator))
+		final int transition = left ? DeckMetrics.TRANSITION_NEXT : DeckMetrics.TRANSITION_FLING;
+		int frames = 0;
+		while (tracks.size() > 0) {
+			mTime += FRAME_INTERVAL;
+			metrics.onRunningAnimators(tracks.size());
+			metrics.onTransitionFrame(transition, FRAME_INTERVAL * 1000000L, 0);
+			tracks.update(mTime, this);
+			frames++;
+		}
+		metrics.onTransitionEnd(transition, frames, 0);
+		metrics.onVisibleCards(geometry.size() - Math.max(geometry.getLeftCard(), 0));
+	}
+
+	/**
+	 * {@code Deck#predictDrag(DeckDragPredictor)} と同じ手順で、予測した移動量だけデッキカードを仮に移動させます。
+	 */
+	private void predict(final int deltaX) {
+		if (deltaX == 0) {
+			return;
+		}
+		final DeckGeometry geometry = mDeck.geometry;
+		geometry.drag(deltaX);
+		final int size = geometry.size();
+		for (int i = 0; i < size; i++) {
+			if (geometry.isMoved(i)) {
+				mDeck.children[geometry.getChildPosition(i)].x = geometry.getTargetX(i);
+				mPredicted = true;
+			}
+		}
+		geometry.discard();
+	}
+
+	/**
+	 * {@code Deck#restorePredictedDrag()} と同じ手順で、仮に移動させたデッキカードを {@link DeckGeometry} の座標へ戻します。
+	 */
+	private void restorePredicted() {
+		if (!mPredicted) {
+			return;
+		}
+		mPredicted = false;
+		final DeckGeometry geometry = mDeck.geometry;
+		final int size = geometry.size();
+		for (int i = 0; i < size; i++) {
+			mDeck.children[geometry.getChildPosition(i)].x = geometry.getX(i);
+		}
+	}
+
+	@Override
+	public void setX(final StandInDeck.Child card, final float x) {
+		card.x = x;
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DeckManager#attach(android.app.Fragment, String)} と {@link DeckManager#detach(android.view.View, boolean)} で行われるフラグメントの検索を計測します。<p>
+ * フラグメントはタグとビューのみを持つ代替モデルで模倣し、
+ * 従来の {@code FragmentManager#findFragmentByTag(String)} と {@code DeckManager#getFragmentPositionByTag(String)} の線形検索と、
+ * {@link DeckFragmentRegistry} による索引付き検索を比較します。
+ *
+ * @author Koji Sugisawa
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckManagerLookupBenchmark {
+
+	/**
+	 * フラグメントを模倣するクラスです。
+	 */
+	static final class StandInFragment {
+		final String tag;
+		final Object view = new Object();
+
+		StandInFragment(final String tag) {
+			this.tag = tag;
+		}
+	}
+
+	@Param({ "2", "10", "100", "500", "2000" })
+	public int cards;
+
+	private final ArrayList<StandInFragment> mFragments = new ArrayList<StandInFragment>();
+	private DeckFragmentRegistry<StandInFragment> mRegistry;
+	private String mTag;
+	private Object mView;
+
+	@Setup
+	public void setUp() {
+		mFragments.clear();
+		mRegistry = new DeckFragmentRegistry<StandInFragment>();
+		for (int i = 0; i < cards; i++) {
+			final StandInFragment f = new StandInFragment("card-" + i);
+			mFragments.add(f);
+			mRegistry.add(f, f.tag);
+			mRegistry.setView(i, f.view);
+		}
+		// 戻る操作で最も多い、最前面の一つ背面のタグとビューを検索します。
+		final int target = Math.max(cards - 2, 0);
+		mTag = new String("card-" + target);
+		mView = mFragments.get(target).view;
+	}
+
+	@Benchmark
+	public int attachTagLookup() {
+		// FragmentManager#findFragmentByTag
+		StandInFragment found = null;
+		for (int i = mFragments.size() - 1; i >= 0; i--) {
+			final StandInFragment f = mFragments.get(i);
+			if (mTag.equals(f.tag)) {
+				found = f;
+				break;
+			}
+		}
+		if (found == null) {
+			return -1;
+		}
+
+		// DeckManager#getFragmentPositionByTag
+		int i = 0;
+		for (final StandInFragment f : mFragments) {
+			if (mTag.equals(f.tag)) {
+				return i;
+			}
+			i++;
+		}
+		return -1;
+	}
+
+	@Benchmark
+	public int registryTagLookup() {
+		return mRegistry.indexOfTag(mTag);
+	}
+
+	@Benchmark
+	public int registryViewLookup() {
+		return mRegistry.indexOfView(mView);
+	}
+
+}
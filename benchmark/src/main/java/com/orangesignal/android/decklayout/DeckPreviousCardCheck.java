@@ -0,0 +1,132 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.util.Random;
+
+/**
+ * {@link DeckGeometry#previous()} の移動先座標が、背面から走査していた従来の算出方法と一致することを検査します。<p>
+ * 左端にスタックされたデッキカードと並べられたデッキカードが無作為に混在するデッキを多数生成し、
+ * 各デッキカードの移動先座標、アニメーションの有無、バウンド対象とバウンド幅を従来の算出方法と比較します。
+ * 一致しない場合は異常終了するため、{@code gradle -p benchmark check} が失敗します。
+ *
+ *   gradle -p benchmark previousCardCheck
+ *
+ * @author Koji Sugisawa
+ */
+public final class DeckPreviousCardCheck {
+
+	private static final long SEED = 20111117L;
+	private static final int DECKS = 200000;
+	private static final int MAX_CARDS = 40;
+
+	private static final int WIDTH = 1280;
+	private static final int MIN_LEFT_MOST = 64;
+	private static final int MAX_LEFT_MOST = 280;
+	private static final int BOUNCE = 20;
+
+	public static void main(final String[] args) {
+		final Random random = new Random(SEED);
+		for (int deck = 0; deck < DECKS; deck++) {
+			final String error = compare(random);
+			if (error != null) {
+				System.err.println("DeckGeometry.previous() differs from the previous algorithm on deck " + deck + ": " + error);
+				System.exit(1);
+			}
+		}
+		System.out.println("decks=" + DECKS + " previous() matches the previous algorithm");
+	}
+
+	/**
+	 * 無作為なデッキを 1 つ生成して比較します。
+	 *
+	 * @return 一致しない場合はその内容。一致する場合は {@code null}
+	 */
+	private static String compare(final Random random) {
+		final int count = 1 + random.nextInt(MAX_CARDS);
+		final int spacing = random.nextInt(3) == 0 ? random.nextInt(16) : 0;
+		final float[] x = new float[count];
+		final int[] widths = new int[count];
+		final int[] paddingLefts = new int[count];
+		final int[] paddingRights = new int[count];
+
+		final DeckGeometry geometry = new DeckGeometry();
+		geometry.setLeftMost(MIN_LEFT_MOST, MAX_LEFT_MOST);
+		geometry.setSpacing(spacing);
+		geometry.setBounce(BOUNCE);
+		geometry.setWidth(WIDTH);
+		float chainX = MAX_LEFT_MOST;
+		for (int i = 0; i < count; i++) {
+			widths[i] = 200 + random.nextInt(600);
+			paddingLefts[i] = random.nextInt(24);
+			paddingRights[i] = random.nextInt(24);
+			switch (random.nextInt(3)) {
+				case 0:		// 左端にスタック
+					x[i] = MIN_LEFT_MOST - paddingLefts[i];
+					break;
+				case 1:		// 直前のデッキカードに続けて並べる
+					x[i] = chainX - paddingLefts[i] + spacing;
+					break;
+				default:	// ドラッグ途中の任意の位置
+					x[i] = MIN_LEFT_MOST + random.nextFloat() * (WIDTH - MIN_LEFT_MOST) - paddingLefts[i];
+					break;
+			}
+			chainX = x[i] + widths[i] - paddingRights[i];
+			geometry.add(i + 1, x[i], widths[i], paddingLefts[i], paddingRights[i]);
+		}
+
+		// 従来の算出方法: 最後のカード以外を背面から走査し、最後に見つかったスタックされたカードを基準とします。
+		final float[] expectedX = x.clone();
+		final boolean[] expectedAnimated = new boolean[count];
+		int base = DeckGeometry.NO_CARD;
+		float baseX = MAX_LEFT_MOST - spacing;
+		for (int i = 0; i < count - 1; i++) {
+			if (((int) x[i] + paddingLefts[i]) == MIN_LEFT_MOST) {
+				base = i;
+				baseX = x[i] + widths[i] - paddingRights[i];
+			}
+		}
+		for (int i = base + 1; i < count; i++) {
+			final float newX = baseX - paddingLefts[i] + spacing;
+			expectedX[i] = newX;
+			expectedAnimated[i] = true;
+			baseX = newX + widths[i] - paddingRights[i];
+		}
+		final int expectedBounceCard = base;
+		final int expectedBounceDistance = base != DeckGeometry.NO_CARD ? BOUNCE : 0;
+
+		geometry.previous();
+		for (int i = 0; i < count; i++) {
+			if (Float.compare(geometry.getTargetX(i), expectedX[i]) != 0) {
+				return "card " + i + " x=" + geometry.getTargetX(i) + " expected " + expectedX[i];
+			}
+			if (geometry.isAnimated(i) != expectedAnimated[i]) {
+				return "card " + i + " animated=" + geometry.isAnimated(i) + " expected " + expectedAnimated[i];
+			}
+		}
+		if (geometry.getBounceCard() != expectedBounceCard) {
+			return "bounce card " + geometry.getBounceCard() + " expected " + expectedBounceCard;
+		}
+		if (expectedBounceCard != DeckGeometry.NO_CARD && geometry.getBounceDistance() != expectedBounceDistance) {
+			return "bounce distance " + geometry.getBounceDistance() + " expected " + expectedBounceDistance;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.util.ArrayList;
+
+/**
+ * {@link DeckTrace} が設定された {@link DeckTracer} へ区間を出力することを検査します。<p>
+ * 記録するトレーサーを設定し、{@link Deck} と {@link DeckManager} と同じく {@code finally} で閉じる入れ子の区間と非同期区間を出力して、
+ * 例外が発生しても開始と終了が対応すること、トレーサーを解除した後は何も出力されないことを確認します。
+ * 一致しない場合は異常終了するため、{@code gradle -p benchmark check} が失敗します。
+ *
+ *   gradle -p benchmark traceCheck
+ *
+ * @author Koji Sugisawa
+ */
+public final class DeckTraceCheck {
+
+	/**
+	 * 出力された区間を文字列として記録するトレーサーです。
+	 */
+	static final class RecordingTracer implements DeckTracer {
+
+		final ArrayList<String> mEvents = new ArrayList<String>();
+
+		@Override
+		public void beginSection(final String name) {
+			mEvents.add("B " + name);
+		}
+
+		@Override
+		public void endSection() {
+			mEvents.add("E");
+		}
+
+		@Override
+		public void beginAsyncSection(final String name, final int cookie) {
+			mEvents.add("S " + name + " " + cookie);
+		}
+
+		@Override
+		public void endAsyncSection(final String name, final int cookie) {
+			mEvents.add("F " + name + " " + cookie);
+		}
+
+	}
+
+	public static void main(final String[] args) {
+		if (DeckTrace.enableSystemTracing() || DeckTrace.isEnabled()) {
+			fail("android.os.Trace must not be available on the JVM");
+		}
+
+		final RecordingTracer tracer = new RecordingTracer();
+		DeckTrace.setTracer(tracer);
+		if (!DeckTrace.isEnabled() || DeckTrace.getTracer() != tracer) {
+			fail("the tracer was not installed");
+		}
+
+		DeckTrace.beginAsyncSection("Deck.transition.next", 1);
+		DeckTrace.beginSection("Deck.onLayout");
+		try {
+			DeckTrace.beginSection("Deck.applyDrag");
+			try {
+				throw new IllegalStateException();
+			} finally {
+				DeckTrace.endSection();
+			}
+		} catch (final IllegalStateException e) {
+			// 例外が発生しても区間が閉じられていることを後で確認します。
+		} finally {
+			DeckTrace.endSection();
+		}
+		DeckTrace.endAsyncSection("Deck.transition.next", 1);
+
+		DeckTrace.setTracer(null);
+		DeckTrace.beginSection("Deck.onMeasure");
+		DeckTrace.endSection();
+		DeckTrace.beginAsyncSection("Deck.transition.first", 2);
+		DeckTrace.endAsyncSection("Deck.transition.first", 2);
+
+		final String expected = "[S Deck.transition.next 1, B Deck.onLayout, B Deck.applyDrag, E, E, F Deck.transition.next 1]";
+		final String actual = tracer.mEvents.toString();
+		if (!expected.equals(actual)) {
+			fail("expected " + expected + " but was " + actual);
+		}
+		System.out.println("sections=" + tracer.mEvents.size() + " traced as expected");
+	}
+
+	private static void fail(final String message) {
+		System.err.println("DeckTrace: " + message);
+		System.exit(1);
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code Deck#showNextCard()} と {@code Deck#showPreviousCard()} の移動先座標の算出を計測します。<p>
+ * 算出結果は反映しないため、各呼び出しは同じ状態のデッキを対象とします。
+ *
+ * @author Koji Sugisawa
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckTransitionBenchmark {
+
+	@Param({ "2", "10", "100", "500", "2000" })
+	public int cards;
+
+	private StandInDeck mDeck;
+
+	@Setup
+	public void setUp() {
+		mDeck = new StandInDeck(cards);
+	}
+
+	@Benchmark
+	public DeckGeometry showNextCard() {
+		final DeckGeometry geometry = mDeck.geometry;
+		geometry.next();
+		return geometry;
+	}
+
+	@Benchmark
+	public DeckGeometry showPreviousCard() {
+		final DeckGeometry geometry = mDeck.geometry;
+		geometry.previous();
+		return geometry;
+	}
+
+}
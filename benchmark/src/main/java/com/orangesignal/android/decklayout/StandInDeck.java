@@ -0,0 +1,100 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * ベンチマーク用に {@link Deck} の子ビューを模倣するデッキを提供します。<p>
+ * 子ビューの位置 0 にはサイドビューを、それ以降にデッキカードを保持し、
+ * {@link Deck} と同じ手順で {@link DeckGeometry} への読み込みと反映を行います。
+ *
+ * @author Koji Sugisawa
+ */
+final class StandInDeck {
+
+	static final int WIDTH = 1280;
+	static final int MIN_LEFT_MOST = 64;
+	static final int MAX_LEFT_MOST = 280;
+	static final int SPACING = 0;
+	static final int BOUNCE = 20;
+
+	static final int CARD_WIDTH = 520;
+	static final int CARD_PADDING = 8;
+
+	/**
+	 * 子ビューを模倣するクラスです。
+	 */
+	static final class Child {
+		final boolean card;
+		float x;
+		int width;
+		int paddingLeft;
+		int paddingRight;
+
+		Child(final boolean card, final float x, final int width, final int padding) {
+			this.card = card;
+			this.x = x;
+			this.width = width;
+			this.paddingLeft = padding;
+			this.paddingRight = padding;
+		}
+	}
+
+	final Child[] children;
+	final DeckGeometry geometry = new DeckGeometry();
+
+	/**
+	 * 最後の 2 枚を除くデッキカードが左端にスタックされた状態のデッキを構築します。<p>
+	 * {@link Deck} と同様に子ビューの追加時に {@link DeckGeometry} の索引を構築します。
+	 *
+	 * @param cards デッキカードの数
+	 */
+	StandInDeck(final int cards) {
+		children = new Child[cards + 1];
+		children[0] = new Child(false, 0, MAX_LEFT_MOST, 0);
+		geometry.setLeftMost(MIN_LEFT_MOST, MAX_LEFT_MOST);
+		geometry.setSpacing(SPACING);
+		geometry.setBounce(BOUNCE);
+		geometry.setWidth(WIDTH);
+		for (int i = 0; i < cards; i++) {
+			final float left = i < cards - 1 ? MIN_LEFT_MOST : MIN_LEFT_MOST + CARD_WIDTH - CARD_PADDING * 2;
+			final Child child = new Child(true, left - CARD_PADDING, CARD_WIDTH, CARD_PADDING);
+			children[i + 1] = child;
+			geometry.add(i + 1, child.x, child.width, child.paddingLeft, child.paddingRight);
+		}
+	}
+
+	int getChildCount() {
+		return children.length;
+	}
+
+	/**
+	 * {@code Deck#applyGeometry()} と同じ手順で移動先座標を反映します。
+	 */
+	void apply() {
+		final DeckGeometry g = geometry;
+		final int size = g.size();
+		for (int i = 0; i < size; i++) {
+			if (g.isMoved(i)) {
+				children[g.getChildPosition(i)].x = g.getTargetX(i);
+			}
+		}
+		g.commit();
+	}
+
+}
@@ -19,22 +19,22 @@
 package com.orangesignal.android.decklayout;
 
 import static android.view.ViewGroup.LayoutParams.FILL_PARENT;
+
+import java.util.ArrayList;
+
 import com.orangesignal.android.decklayout.R;
-import android.animation.Animator;
-import android.animation.Animator.AnimatorListener;
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.database.DataSetObserver;
+import android.graphics.Canvas;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.view.animation.DecelerateInterpolator;
-import android.view.animation.LinearInterpolator;
+import android.view.ViewTreeObserver;
 import android.widget.FrameLayout;
 
 /**
@@ -105,8 +105,54 @@ public class Deck extends FrameLayout {
 	 */
 	private int mMaxLeftMost;
 
+	/**
+	 * デッキカードの計測結果の有効性を判断するため、前回の計測条件を保持します。<p>
+	 * 計測条件が変わるたびに世代を進め、各デッキカードは計測した時点の世代を保持します。
+	 */
+	private int mLastWidthMeasureSpec = -1;
+	private int mLastHeightMeasureSpec = -1;
+	private int mLastMinLeftMost;
+	private int mLastMaxLeftMost;
+	private int mMeasureGeneration;
+
+	/**
+	 * 前回の並べ直し以降に追加/削除または大きさの変更があったデッキカードのうち、最も背面のものの {@link DeckGeometry} 上の位置を保持します。
+	 */
+	private int mLayoutDirtyCard = Integer.MAX_VALUE;
+
 	private View mSideView;
 
+	/**
+	 * デッキカードの位置計算用の {@link DeckGeometry} を保持します。<p>
+	 * デッキカードの追加/削除時および位置の変更時に更新され、デッキカードの子ビューとしての位置の索引を兼ねます。
+	 */
+	private final DeckGeometry mGeometry = new DeckGeometry();
+
+	/**
+	 * {@link #mGeometry} と同じ順序でデッキカードのビューを保持します。
+	 */
+	private final ArrayList<View> mCards = new ArrayList<View>();
+
+	/**
+	 * 子ビューの追加/削除を通知するリスナを保持します。
+	 */
+	private final PassThroughHierarchyChangeListener mPassThroughListener = new PassThroughHierarchyChangeListener();
+
+	/**
+	 * フリング時に速度の向きのみを使用して 1 段階ずつデッキカードを移動することを表す定数です。
+	 */
+	public static final int FLING_MODE_STEP = 0;
+
+	/**
+	 * フリング時に速度の大きさから静止位置を予測し、バネで落ち着かせることを表す定数です。
+	 */
+	public static final int FLING_MODE_PHYSICS = 1;
+
+	/**
+	 * フリング時の動作を保持します。
+	 */
+	private int mFlingMode = FLING_MODE_STEP;
+
 	/**
 	 * ドラッグの重み係数を保持します。
 	 */
@@ -119,6 +165,45 @@ public class Deck extends FrameLayout {
 
 	private float mLastMotionY;
 
+	/**
+	 * まだデッキカードへ反映していないドラッグの移動量 (ピクセル) を保持します。<p>
+	 * 移動量はタッチイベント毎に累積され、描画の直前に一度だけデッキカードへ反映されます。
+	 * ピクセル未満の端数は次のフレームへ持ち越します。
+	 */
+	private float mPendingDragX;
+
+	/**
+	 * 次の描画の直前にドラッグの移動量を反映するかどうかを保持します。
+	 */
+	private boolean mDragPending;
+
+	/**
+	 * ウィンドウから切り離している途中かどうかを保持します。
+	 */
+	private boolean mDetaching;
+
+	/**
+	 * ドラッグ中の指の座標を予測する予測器を保持します。{@code null} の場合は予測を行いません。
+	 */
+	private DeckDragPredictor mDragPredictor;
+
+	/**
+	 * 予測した指の座標へデッキカードのビューを仮に移動させているかどうかを保持します。<p>
+	 * 仮の移動は {@link DeckGeometry} へ反映しないため、{@link DeckGeometry#getX(int)} は常に実際の指の座標に従った座標となります。
+	 */
+	private boolean mDragPredicted;
+
+	/**
+	 * 描画の直前に累積したドラッグの移動量を反映するリスナーです。
+	 */
+	private final ViewTreeObserver.OnPreDrawListener mDragFrameListener = new ViewTreeObserver.OnPreDrawListener() {
+		@Override
+		public boolean onPreDraw() {
+			applyPendingDrag(mIsBeingDragged);
+			return true;
+		}
+	};
+
 	/**
 	 * True if the user is currently dragging this ScrollView around. This is
 	 * not the same as 'is being flinged', which can be checked by
@@ -129,7 +214,8 @@ public class Deck extends FrameLayout {
     public boolean mDisallowInterceptTouchEvent = false;
 
 	/**
-	 * Determines speed during touch scrolling
+	 * Determines speed during touch scrolling<p>
+	 * ジェスチャー毎に取得と解放を繰り返さないよう、ウィンドウから切り離されるまで保持し、ジェスチャーの終了時に消去して再利用します。
 	 */
 	private VelocityTracker mVelocityTracker;
 
@@ -185,6 +271,9 @@ public class Deck extends FrameLayout {
 		mTouchSlop = configuration.getScaledTouchSlop();
 //		mMinimumVelocity = configuration.getScaledMinimumFlingVelocity();
 		mMaximumVelocity = configuration.getScaledMaximumFlingVelocity();
+
+		mGeometry.setBounce(mBounce);
+		super.setOnHierarchyChangeListener(mPassThroughListener);
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -195,36 +284,98 @@ public class Deck extends FrameLayout {
 	 */
 	@Override
 	protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
-		// この View の幅と高さから縦置き/横置きに適したカード幅を算出して各カードに設定します。
-		final int measureWidth = MeasureSpec.getSize(widthMeasureSpec);
-		final int measureHeight = MeasureSpec.getSize(heightMeasureSpec);
-
-		// このビューの要求する幅が要求する高さ未満の場合は、縦置きと判断します。
-		if (measureWidth < measureHeight) {
-			mMinCardWidth = measureWidth - mMaxLeftMost;
-		// それ以外の場合は、横置きと判断します。
-		} else {
-			mMinCardWidth = (measureWidth - mMinLeftMost) / 2;
-		}
+		DeckTrace.beginSection("Deck.onMeasure");
+		try {
+			final DeckMetrics metrics = mMetrics;
+			final long startTime = metrics != null ? System.nanoTime() : 0L;
+
+			// この View の幅と高さから縦置き/横置きに適したカード幅を算出して各カードに設定します。
+			final int measureWidth = MeasureSpec.getSize(widthMeasureSpec);
+			final int measureHeight = MeasureSpec.getSize(heightMeasureSpec);
+
+			// このビューの要求する幅が要求する高さ未満の場合は、縦置きと判断します。
+			if (measureWidth < measureHeight) {
+				mMinCardWidth = measureWidth - mMaxLeftMost;
+			// それ以外の場合は、横置きと判断します。
+			} else {
+				mMinCardWidth = (measureWidth - mMinLeftMost) / 2;
+			}
 
-		final int count = getChildCount();
-		for (int i = 0; i < count; i++) {
-			final View child = getChildAt(i);
-			if (child.getVisibility() != GONE) {
+			// 計測条件が前回と異なる場合は、すべてのデッキカードの計測結果を無効にします。
+			if (widthMeasureSpec != mLastWidthMeasureSpec || heightMeasureSpec != mLastHeightMeasureSpec
+					|| mMinLeftMost != mLastMinLeftMost || mMaxLeftMost != mLastMaxLeftMost) {
+				mLastWidthMeasureSpec = widthMeasureSpec;
+				mLastHeightMeasureSpec = heightMeasureSpec;
+				mLastMinLeftMost = mMinLeftMost;
+				mLastMaxLeftMost = mMaxLeftMost;
+				mMeasureGeneration++;
+			}
+
+			final int count = getChildCount();
+			int card = 0;
+			for (int i = 0; i < count; i++) {
+				final View child = getChildAt(i);
 				if (isCard(child)) {
-					if (child instanceof FixedDeckCardLayout) {
-						// 何も行いません
-					} else if (child instanceof FillDeckCardLayout) {
-						child.getLayoutParams().width = measureWidth - mMinLeftMost + child.getPaddingLeft() + child.getPaddingRight();
-					} else {
-						child.getLayoutParams().width = mMinCardWidth + child.getPaddingLeft() + child.getPaddingRight();
+					if (child.getVisibility() != GONE) {
+						measureCard(card, widthMeasureSpec, heightMeasureSpec, measureWidth);
 					}
+					card++;
+				} else if (child.getVisibility() != GONE) {
+					measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, 0);
 				}
-				measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, 0);
 			}
+
+			setMeasuredDimension(measureWidth, measureHeight);
+
+			if (metrics != null) {
+				metrics.onSection(DeckMetrics.SECTION_MEASURE, System.nanoTime() - startTime);
+			}
+		} finally {
+			DeckTrace.endSection();
+		}
+	}
+
+	/**
+	 * 指定されたデッキカードを計測します。<p>
+	 * 計測条件 (幅と高さの計測仕様、左端の範囲) が前回から変わっておらず、デッキカード自身もレイアウトを要求していない場合は計測を省略します。
+	 * デッキカードの種類ごとの幅は {@link ViewGroup.LayoutParams} を変更せずに、固定の計測仕様として適用します。
+	 * 
+	 * @param index {@link DeckGeometry} 上の位置
+	 * @param widthMeasureSpec このビューの幅の計測仕様
+	 * @param heightMeasureSpec このビューの高さの計測仕様
+	 * @param measureWidth このビューの幅
+	 */
+	private void measureCard(final int index, final int widthMeasureSpec, final int heightMeasureSpec, final int measureWidth) {
+		final DeckCardLayout card = (DeckCardLayout) getCard(index);
+		if (card.getMeasureGeneration() == mMeasureGeneration && !card.isLayoutRequested()) {
+			return;
 		}
+		final int measuredWidth = card.getMeasuredWidth();
+
+		if (card instanceof FixedDeckCardLayout) {
+			measureChildWithMargins(card, widthMeasureSpec, 0, heightMeasureSpec, 0);
+		} else {
+			final int width;
+			if (card instanceof FillDeckCardLayout) {
+				width = measureWidth - mMinLeftMost + card.getPaddingLeft() + card.getPaddingRight();
+			} else {
+				width = mMinCardWidth + card.getPaddingLeft() + card.getPaddingRight();
+			}
 
-		setMeasuredDimension(measureWidth, measureHeight);
+			final ViewGroup.LayoutParams lp = card.getLayoutParams();
+			int verticalUsed = getPaddingTop() + getPaddingBottom();
+			if (lp instanceof MarginLayoutParams) {
+				verticalUsed += ((MarginLayoutParams) lp).topMargin + ((MarginLayoutParams) lp).bottomMargin;
+			}
+			card.measure(
+					MeasureSpec.makeMeasureSpec(Math.max(width, 0), MeasureSpec.EXACTLY),
+					getChildMeasureSpec(heightMeasureSpec, verticalUsed, lp.height)
+				);
+		}
+		card.setMeasureGeneration(mMeasureGeneration);
+		if (card.getMeasuredWidth() != measuredWidth) {
+			markLayoutDirty(index);
+		}
 	}
 
 	/**
@@ -234,41 +385,111 @@ public class Deck extends FrameLayout {
 	@SuppressLint("WrongCall")
 	@Override
 	protected void onLayout(final boolean changed, final int l, final int t, final int r, final int b) {
-		final int count = getChildCount();
-		if (changed) {
-			final int leftCardPosition = getLeftCardPosition();
+		DeckTrace.beginSection("Deck.onLayout");
+		try {
+			// 予測による仮の移動をデッキカードの座標として取り込まないよう、先に取り消します。
+			restorePredictedDrag();
+
+			final DeckMetrics metrics = mMetrics;
+			final long startTime = metrics != null ? System.nanoTime() : 0L;
 
-			// SideView や見えていないデッキカードは一般的なレイアウト処理を行います。
-			for (int i = 0; i < leftCardPosition; i++) {
+			final DeckGeometry geometry = mGeometry;
+			geometry.setWidth(r - l);
+
+			// SideView は一般的なレイアウト処理を行います。
+			final int count = getChildCount();
+			for (int i = 0; i < count; i++) {
 				final View child = getChildAt(i);
-				if (child.getVisibility() != GONE) {
-					child.layout(child.getLeft(), child.getTop(), child.getLeft() + child.getMeasuredWidth(), child.getTop() + child.getMeasuredHeight());
+				if (!isCard(child) && child.getVisibility() != GONE) {
+					layoutChild(child);
 				}
 			}
 
-			View v = null;
-			for (int i = leftCardPosition; i < count; i++) {
-				final View child = getChildAt(i);
-				if (child != null && child.getVisibility() != GONE) {
-					if (v != null) {
-						child.setX(v.getX() + v.getWidth() - v.getPaddingRight() - child.getPaddingLeft() + mSpacing);
-					}
-					final int width = child.getMeasuredWidth();
-					final int height = child.getMeasuredHeight();
-					child.layout(child.getLeft(), child.getTop(), child.getLeft() + width, child.getTop() + height);
-					v = child;
+			// 前回から変更のあったデッキカードより背面のデッキカードは、自身がレイアウトを要求している場合のみレイアウトします。
+			final int size = geometry.size();
+			final int dirty = Math.min(mLayoutDirtyCard, size);
+			for (int i = 0; i < dirty; i++) {
+				if (getCard(i).isLayoutRequested()) {
+					layoutCard(i);
 				}
 			}
-		} else {
-			for (int i = 0; i < count; i++) {
-				final View child = getChildAt(i);
-				if (child.getVisibility() != GONE) {
-					child.layout(child.getLeft(), child.getTop(), child.getLeft() + child.getMeasuredWidth(), child.getTop() + child.getMeasuredHeight());
+
+			if (changed) {
+				// 見えている左端のデッキカードより背面で変更のあったデッキカードは並べ直さずにレイアウトします。
+				final int start = Math.max(geometry.getLeftCard(), 0);
+				final int from = Math.max(dirty, start);
+				for (int i = dirty; i < from; i++) {
+					layoutCard(i);
+				}
+
+				// 変更のあったデッキカードから前面のデッキカードを、直前のデッキカードに続けて並べ直します。
+				View v = null;
+				for (int i = from - 1; i >= start && v == null; i--) {
+					if (getCard(i).getVisibility() != GONE) {
+						v = getCard(i);
+					}
+				}
+				for (int i = from; i < size; i++) {
+					final View child = getCard(i);
+					if (child.getVisibility() != GONE) {
+						if (v != null) {
+							child.setX(v.getX() + v.getWidth() - v.getPaddingRight() - child.getPaddingLeft() + mSpacing);
+						}
+						v = child;
+					}
+					geometry.setX(i, child.getX());
+					layoutCard(i);
+				}
+				mLayoutDirtyCard = Integer.MAX_VALUE;
+			} else {
+				// 並べ直しは次にこのビューの大きさが変わった時点で行うため、変更範囲は保持したままにします。
+				for (int i = dirty; i < size; i++) {
+					layoutCard(i);
 				}
 			}
+
+			if (mOnDeckCardRemoveListener != null) {
+				mOnDeckCardRemoveListener.onLayout(this);
+			}
+
+			if (metrics != null) {
+				metrics.onSection(DeckMetrics.SECTION_LAYOUT, System.nanoTime() - startTime);
+			}
+		} finally {
+			DeckTrace.endSection();
+		}
+	}
+
+	/**
+	 * 指定された子ビューを現在の位置に計測済みの大きさでレイアウトします。
+	 * 
+	 * @param child 子ビュー
+	 */
+	private static void layoutChild(final View child) {
+		child.layout(child.getLeft(), child.getTop(), child.getLeft() + child.getMeasuredWidth(), child.getTop() + child.getMeasuredHeight());
+	}
+
+	/**
+	 * 指定された {@link DeckGeometry} 上の位置のデッキカードをレイアウトし、幅とパディングを索引へ反映します。
+	 * 
+	 * @param card {@link DeckGeometry} 上の位置
+	 */
+	private void layoutCard(final int card) {
+		final View child = getCard(card);
+		if (child.getVisibility() != GONE) {
+			layoutChild(child);
 		}
-		if (mOnDeckCardRemoveListener != null) {
-			mOnDeckCardRemoveListener.onLayout(this);
+		mGeometry.setMetrics(card, child.getWidth(), child.getPaddingLeft(), child.getPaddingRight());
+	}
+
+	/**
+	 * 指定された {@link DeckGeometry} 上の位置から前面のデッキカードを次回のレイアウトで並べ直すようにします。
+	 * 
+	 * @param card {@link DeckGeometry} 上の位置
+	 */
+	private void markLayoutDirty(final int card) {
+		if (card < mLayoutDirtyCard) {
+			mLayoutDirtyCard = card;
 		}
 	}
 
@@ -347,31 +568,42 @@ public class Deck extends FrameLayout {
 			}
 		}
 
-		final int lastCardPosition = getLastCardPosition();
-		// はじめてのカードの場合
-		if (lastCardPosition == CARD_NOT_FOUND) {
-			v.setX(mMaxLeftMost - v.getPaddingLeft());
-		} else {
-			final View last = getChildAt(lastCardPosition);
-			v.setX(Math.min(
-					mMinLeftMost - last.getPaddingLeft() + last.getWidth() - last.getPaddingRight() - v.getPaddingLeft() + mSpacing,
-					getWidth() - (v.getLayoutParams().width - v.getPaddingLeft() - v.getPaddingRight())
-				));
-
-			final int count = getChildCount();
-			for (int i = 0; i < count; i++) {
-				final View child = getChildAt(i);
-				if (!isCard(child)) {
-					continue;
-				}
-				if (getCardLeft(child) > mMinLeftMost) {
-					final float oldX = child.getX();
-					final float newX = mMinLeftMost - child.getPaddingLeft();
-					child.setX(newX);
-					animation(child, oldX, newX, false, true);
+		final DeckGeometry geometry = mGeometry;
+		final ViewGroup.LayoutParams lp = v.getLayoutParams();
+		v.setX(geometry.getAppendX(v.getPaddingLeft(), v.getPaddingRight(), lp == null ? 0 : lp.width));
+		if (geometry.size() > 0) {
+			geometry.collapse();
+			final int size = geometry.size();
+			for (int i = 0; i < size; i++) {
+				if (geometry.isAnimated(i)) {
+					moveCard(i, false, true);
 				}
 			}
+			geometry.commit();
+		}
+	}
+
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		getViewTreeObserver().addOnPreDrawListener(mDragFrameListener);
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		getViewTreeObserver().removeOnPreDrawListener(mDragFrameListener);
+		mDetaching = true;
+		mDragPending = false;
+		mPendingDragX = 0F;
+		restorePredictedDrag();
+		if (mVelocityTracker != null) {
+			mVelocityTracker.recycle();
+			mVelocityTracker = null;
 		}
+		// 実行中のアニメーションは終了座標へ移動させて終了します。
+		mAnimationDriver.end();
+		mDetaching = false;
+		super.onDetachedFromWindow();
 	}
 
 	public void requestDisallowInterceptTouchEvent() {
@@ -396,6 +628,10 @@ public class Deck extends FrameLayout {
 
 		switch (action & MotionEvent.ACTION_MASK) {
 			case MotionEvent.ACTION_DOWN:
+				// 前のジェスチャーの速度の履歴を消去します。
+				if (mVelocityTracker != null) {
+					mVelocityTracker.clear();
+				}
 				/*
 				 * Remember location of down touch.
 				 * ACTION_DOWN always refers to pointer index 0.
@@ -432,6 +668,7 @@ public class Deck extends FrameLayout {
 					if (xDiff >= yDiff && xDiff > mTouchSlop) {
 						mIsBeingDragged = true;
 						mLastMotionX = x;
+						beginDrag();
 					}
 				}
 				break;
@@ -442,6 +679,7 @@ public class Deck extends FrameLayout {
 				mIsBeingDragged = false;
 				mDisallowInterceptTouchEvent = false;
 				mActivePointerId = INVALID_POINTER;
+				restoreLayersIfSettled();
 				break;
 
 			case MotionEvent.ACTION_POINTER_UP:
@@ -465,6 +703,8 @@ public class Deck extends FrameLayout {
 
 		if (mVelocityTracker == null) {
 			 mVelocityTracker = VelocityTracker.obtain();
+		} else if ((ev.getAction() & MotionEvent.ACTION_MASK) == MotionEvent.ACTION_DOWN) {
+			mVelocityTracker.clear();
 		}
 		mVelocityTracker.addMovement(ev);
 
@@ -475,130 +715,83 @@ public class Deck extends FrameLayout {
 				if (!mIsBeingDragged) {
 					return false;
 				}
+				beginDrag();
 
 				// Remember where the motion event started
 				mLastMotionX = ev.getX();
 				mActivePointerId = ev.getPointerId(0);
+				mPendingDragX = 0F;
+				mDragPending = false;
+				restorePredictedDrag();
+				if (mDragPredictor != null) {
+					mDragPredictor.reset();
+					mDragPredictor.addSample(ev.getEventTime(), mLastMotionX);
+				}
 				break;
 
 			case MotionEvent.ACTION_MOVE:
 				if (mIsBeingDragged) {
-					// Scroll to follow the motion event
-					final int activePointerIndex = ev.findPointerIndex(mActivePointerId);
-					float x = ev.getX(activePointerIndex);
-					final int deltaX = (int) ((mLastMotionX - x) * mDragWeight);
-					mLastMotionX = x;
-
-					View view = null;	// 一つ前に処理したカード
-					final int count = getChildCount();
-
-					// 左へドラッグ中の場合
-					if (deltaX > 0) {
-						// 表示する必要のないカードを非表示にして描画性能を向上させます。
-						hideUnderCards();
-
-						// 各カードの左ドラッグを処理します。
-						float minX = getCardCount() > 1 ? mMinLeftMost : 0F;
-						for (int i = count - 1; i >= 0; i--) {
-							final View child = getChildAt(i);
-							if (!isCard(child)) {
-								continue;
-							}
-
-							// 最前面のカード
-							if (view == null) {
-								// 最前面のカードは minX より左に移動できないようにします。
-								float newX = child.getX() - deltaX;
-								if ((newX + child.getPaddingLeft()) < minX) {
-									newX = minX - child.getPaddingLeft();
-								}
-								child.setX(newX);
-								view = child;
-
-							// それ以降のカード(※左にスタックされたカードを除く)
-							} else if (getCardLeft(child) > mMinLeftMost) {
-								// 最前面でないカードは左位置を制限して mMinLeftMost より左に移動できないようにします。
-								final float newX = child.getX() - deltaX;
-								if ((newX + child.getPaddingLeft()) > mMinLeftMost) {
-									child.setX(newX);
-								} else {
-									child.setX(mMinLeftMost - child.getPaddingLeft());
-								}
-								view = child;
-							}
-						}
-					// 右へドラッグ中の場合
-					} else if (deltaX < 0) {
-						// 表示する必要のあるカードを表示します。
-						int pos = getLeftCardPosition();
-						if (pos != CARD_NOT_FOUND) {
-							pos = pos - 1;
-							for (int i = count - 1; i >= pos; i--) {
-								final View child = getChildAt(i);
-								if (isCard(child)) {
-									child.setVisibility(View.VISIBLE);
-								}
-							}
+					DeckTrace.beginSection("Deck.onTouchEvent.move");
+					try {
+						// 移動量は累積のみ行い、次の描画の直前にまとめてデッキカードへ反映します。
+						// 履歴の座標は VelocityTracker#addMovement(MotionEvent) が速度の算出に使用します。
+						final int activePointerIndex = ev.findPointerIndex(mActivePointerId);
+						final float x = ev.getX(activePointerIndex);
+						mPendingDragX += (mLastMotionX - x) * mDragWeight;
+						mLastMotionX = x;
+						if (mDragPredictor != null) {
+							addPredictorSamples(ev, activePointerIndex);
 						}
-
-						for (int i = count - 1; i >= 0; i--) {
-							final View child = getChildAt(i);
-							if (!isCard(child)) {
-								continue;
-							}
-
-							// 最前面のカード
-							if (view == null) {
-								// 最前面のカードは横位置について特に制限しません。
-								child.setX(child.getX() - deltaX);
-
-							// 上のカードの左端とこのカードの右端が mSpacing 分以上に離れる場合は mSpacing の間隔を空けて隣接するようにします。
-							} else if (getCardLeft(view) > (getCardRight(child) + mSpacing)) {
-								final float newX = getCardLeft(view) - child.getWidth() + child.getPaddingRight() - mSpacing;
-								child.setX(newX);
-							}
-							view = child;
+						if (!mDragPending) {
+							mDragPending = true;
+							invalidate();
 						}
-					}
-
-					final View child = getChildAt(getFirstCardPosition());
-					if (child != null && mOnDeckCardRemoveListener != null) {
-						mOnDeckCardRemoveListener.onRemoveDrag(this, child);
+					} finally {
+						DeckTrace.endSection();
 					}
 				}
 				break;
 
 			case MotionEvent.ACTION_UP:
 				if (mIsBeingDragged) {
-					final VelocityTracker velocityTracker = mVelocityTracker;
-					velocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
-					final int initialVelocity = (int) velocityTracker.getXVelocity(mActivePointerId);
-
-					if (getChildCount() > 0) {
-						if (mOnDeckCardRemoveListener != null) {
-							mOnDeckCardRemoveListener.onRemoveDragEnd(this);
+					DeckTrace.beginSection("Deck.onTouchEvent.up");
+					try {
+						applyPendingDrag(false);
+						mPendingDragX = 0F;
+						final VelocityTracker velocityTracker = mVelocityTracker;
+						velocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
+						final int initialVelocity = (int) velocityTracker.getXVelocity(mActivePointerId);
+
+						if (getChildCount() > 0) {
+							if (mOnDeckCardRemoveListener != null) {
+								mOnDeckCardRemoveListener.onRemoveDragEnd(this);
+							}
+							fling(initialVelocity);
 						}
-						fling(initialVelocity);
-					}
 
-					mActivePointerId = INVALID_POINTER;
-					mIsBeingDragged = false;
+						mActivePointerId = INVALID_POINTER;
+						mIsBeingDragged = false;
 
-					if (mVelocityTracker != null) {
-						mVelocityTracker.recycle();
-						mVelocityTracker = null;
+						if (mVelocityTracker != null) {
+							mVelocityTracker.clear();
+						}
+						restoreLayersIfSettled();
+					} finally {
+						DeckTrace.endSection();
 					}
 				}
 				break;
 
 			case MotionEvent.ACTION_CANCEL:
 				if (mIsBeingDragged && getChildCount() > 0) {
+					applyPendingDrag(false);
+					mPendingDragX = 0F;
 					mActivePointerId = INVALID_POINTER;
 					mIsBeingDragged = false;
 					if (mVelocityTracker != null) {
-						mVelocityTracker.recycle();
-						mVelocityTracker = null;
+						mVelocityTracker.clear();
 					}
+					restoreLayersIfSettled();
 				}
 				break;
 
@@ -610,6 +803,135 @@ public class Deck extends FrameLayout {
 		return true;
 	}
 
+	/**
+	 * ドラッグの開始時に、アニメーション中のデッキカードをその場で止めます。<p>
+	 * {@link DeckGeometry} はアニメーションの終了座標を保持しているため、止めたデッキカードの実際の座標で置き換えます。
+	 * 置き換えずにドラッグすると、ドラッグの移動量が終了座標に対して算出され、次のフレームでデッキカードが飛んでしまいます。
+	 */
+	private void beginDrag() {
+		if (mAnimationDriver.getRunningCount() == 0) {
+			return;
+		}
+		mAnimationDriver.stop();
+		final DeckGeometry geometry = mGeometry;
+		for (int i = geometry.size() - 1; i >= 0; i--) {
+			geometry.setX(i, getCard(i).getX());
+		}
+	}
+
+	/**
+	 * 累積したドラッグの移動量をデッキカードへ反映します。<p>
+	 * 描画の直前に呼び出されるため、タッチイベントが 1 フレームに何度届いてもデッキカードの移動は 1 フレームに一度となります。
+	 * 予測器が設定されている場合は、実際の移動量を反映した後に予測した指の座標までデッキカードのビューを仮に移動させます。
+	 * 仮の移動は次のフレームの反映前に取り消されるため、予測が外れてもデッキカードの座標には残りません。
+	 * 
+	 * @param predict 予測した指の座標まで仮に移動させる場合は {@code true}。実際の指の座標に戻す場合は {@code false}
+	 */
+	private void applyPendingDrag(final boolean predict) {
+		if (!mDragPending && !mDragPredicted) {
+			return;
+		}
+		mDragPending = false;
+		DeckTrace.beginSection("Deck.applyDrag");
+		try {
+			final DeckMetrics metrics = mMetrics;
+			final long startTime = metrics != null ? System.nanoTime() : 0L;
+
+			// 前のフレームで予測した座標から実際の指の座標へ戻します。
+			restorePredictedDrag();
+
+			final int deltaX = (int) mPendingDragX;
+			mPendingDragX -= deltaX;
+			if (deltaX != 0) {
+				// ドラッグで見える可能性のあるデッキカードを生成します。
+				ensureWindow();
+
+				// 各カードのドラッグを処理します。
+				final DeckGeometry geometry = mGeometry;
+				geometry.drag(deltaX);
+				applyGeometry();
+			}
+
+			if (predict && mDragPredictor != null) {
+				predictDrag(mDragPredictor);
+			}
+
+			final View child = getChildAt(getFirstCardPosition());
+			if (child != null && mOnDeckCardRemoveListener != null) {
+				mOnDeckCardRemoveListener.onRemoveDrag(this, child);
+			}
+
+			if (metrics != null) {
+				metrics.onSection(DeckMetrics.SECTION_DRAG, System.nanoTime() - startTime);
+			}
+		} finally {
+			DeckTrace.endSection();
+		}
+
+		// 指が止まった場合に仮の移動を取り消すため、次のフレームでも予測し直します。
+		if (mDragPredicted) {
+			invalidate();
+		}
+	}
+
+	/**
+	 * 予測した指の座標までデッキカードのビューを仮に移動させます。<p>
+	 * 移動先座標は実際の移動量と同様に {@link DeckGeometry#drag(int)} で左端の範囲とスタックの規則に従って算出しますが、確定せずに破棄します。
+	 */
+	private void predictDrag(final DeckDragPredictor predictor) {
+		final float x = predictor.predict(SystemClock.uptimeMillis());
+		if (Float.isNaN(x)) {
+			return;
+		}
+		final int deltaX = (int) (mPendingDragX + (mLastMotionX - x) * mDragWeight);
+		if (deltaX == 0) {
+			return;
+		}
+		ensureWindow();
+		final DeckGeometry geometry = mGeometry;
+		geometry.drag(deltaX);
+		final int size = geometry.size();
+		for (int i = 0; i < size; i++) {
+			if (geometry.isMoved(i)) {
+				final View child = getCard(i);
+				promoteLayer(child);
+				child.setX(geometry.getTargetX(i));
+				mDragPredicted = true;
+			}
+		}
+		geometry.discard();
+	}
+
+	/**
+	 * 予測によって仮に移動させたデッキカードのビューを {@link DeckGeometry} の座標へ戻します。
+	 */
+	private void restorePredictedDrag() {
+		if (!mDragPredicted) {
+			return;
+		}
+		mDragPredicted = false;
+		final DeckGeometry geometry = mGeometry;
+		final int size = geometry.size();
+		for (int i = 0; i < size; i++) {
+			final View child = getCard(i);
+			if (child.getX() != geometry.getX(i)) {
+				child.setX(geometry.getX(i));
+			}
+		}
+	}
+
+	/**
+	 * 指定されたタッチイベントの履歴を含むすべての座標を予測器へ追加します。
+	 */
+	private void addPredictorSamples(final MotionEvent ev, final int pointerIndex) {
+		final DeckDragPredictor predictor = mDragPredictor;
+		final int historySize = ev.getHistorySize();
+		for (int h = 0; h < historySize; h++) {
+			predictor.addSample(ev.getHistoricalEventTime(h), ev.getHistoricalX(pointerIndex, h));
+		}
+		predictor.addSample(ev.getEventTime(), ev.getX(pointerIndex));
+	}
+
 	private void onSecondaryPointerUp(final MotionEvent ev) {
 		final int pointerIndex = (ev.getAction() & MotionEvent.ACTION_POINTER_INDEX_MASK) >> MotionEvent.ACTION_POINTER_INDEX_SHIFT;
 		final int pointerId = ev.getPointerId(pointerIndex);
@@ -623,6 +945,9 @@ public class Deck extends FrameLayout {
 			if (mVelocityTracker != null) {
 				mVelocityTracker.clear();
 			}
+			if (mDragPredictor != null) {
+				mDragPredictor.reset();
+			}
 		}
 	}
 
@@ -633,6 +958,11 @@ public class Deck extends FrameLayout {
 	 * Positive numbers mean that the finger/cursor is moving down the screen, which means we want to scroll towards the top.
 	 */
 	private void fling(final int velocity) {
+		ensureWindow();
+		if (mFlingMode == FLING_MODE_PHYSICS) {
+			flingWithPhysics(velocity);
+			return;
+		}
 		if (velocity < 0) {
 			// 左へフリックされた場合は、子ビューを全体的に左へスライドさせます。
 			showNextCard();
@@ -643,123 +973,89 @@ public class Deck extends FrameLayout {
 	}
 
 	/**
-	 * 子ビューを全体的に左へスライドさせて最後の子ビューを完全に表示させます。
+	 * 指の速度から静止位置を予測してデッキカードを移動し、指の速度を初速としてバネで落ち着かせます。<p>
+	 * 右へ強くフリングされた場合は、左端にスタックされたデッキカードを複数枚まとめて見せます。
+	 * 
+	 * @param velocity X 方向の速度 (ピクセル/秒)
+	 * @see DeckFlingPhysics
 	 */
-	private void showNextCard() {
-		if (getCardCount() == 1) {
-			final View child = getChildAt(getFirstCardPosition());
-			final float oldX = child.getX();
-			final float newX = mMaxLeftMost - child.getPaddingLeft();
-			child.setX(newX);
-			animation(child, oldX, newX, true, false);
-			return;
+	private void flingWithPhysics(final int velocity) {
+		final DeckGeometry geometry = mGeometry;
+		if (velocity < 0) {
+			geometry.next();
+		} else {
+			geometry.previous(geometry.getPreviousCards(DeckFlingPhysics.restDistance(velocity)));
 		}
 
-		final int count = getChildCount();
-		final int lastCardPosition = getLastCardPosition();
-		final int w = getWidth();
-
-		float baseX = mMinLeftMost - mSpacing;
-		float prevX = baseX;
-		View prev = null;
-
-		View bounceCard = null;
-		int bounceDelay = 0;
-		int bounce = mBounce;
-
-		boolean hideUnderCards = true;
-		for (int i = 0; i < count; i++) {
-			final View child = getChildAt(i);
-			if (!isCard(child)) {
-				continue;
-			}
-
-			if (getCardLeft(child) != mMinLeftMost || i == lastCardPosition) {
+		final int size = geometry.size();
+		final int hideUnderCard = geometry.getHideUnderCard();
+		for (int i = 0; i < size; i++) {
+			if (geometry.isAnimated(i)) {
+				final View child = getCard(i);
+				final float newX = geometry.getTargetX(i);
 				final float oldX = child.getX();
-				float newX = baseX - child.getPaddingLeft() + mSpacing;
-
-				// カードが複数ある場合、最後のカードは重ねない
-				if (prev != null && i >= lastCardPosition) {
-					baseX = prevX + prev.getWidth() - prev.getPaddingRight();
-					newX = baseX - child.getPaddingLeft() + mSpacing;
-					if (baseX < w && (newX + child.getWidth() - child.getPaddingLeft()) > w) {
-						newX = w - child.getWidth() + child.getPaddingRight();
-						bounce = bounce * -1;
-					}
-					bounceCard = prev;
-				}
 				child.setX(newX);
-				baseX = newX + child.getWidth() - child.getPaddingRight();
-				prevX = newX;
-				bounceDelay = animation(child, oldX, newX, true, hideUnderCards);
-				hideUnderCards = false;
-			} else {
-				prevX = child.getX();
+				promoteLayer(child);
+				mAnimationDriver.spring(child, oldX, newX, velocity, i == hideUnderCard);
 			}
-			prev = child;
-		}
-
-		if (bounceCard != null && getCardLeft(bounceCard) == mMinLeftMost) {
-			animation(bounceCard, bounceDelay, bounce);
 		}
+		geometry.commit();
+		mAnimationDriver.beginTransition(DeckMetrics.TRANSITION_FLING);
 	}
 
 	/**
-	 * 子ビューを全体的に右へスライドさせます。
+	 * 子ビューを全体的に左へスライドさせて最後の子ビューを完全に表示させます。
 	 */
-	private void showPreviousCard() {
-		final int count = getChildCount();
-
-		// 見えている左端のビューを取得します。
-		int baseIndex = -1;
-		float baseX = mMaxLeftMost - mSpacing;
-
-		for (int i = count - 1; i >= 0; i--) {
-			final View last = getChildAt(i);
-			if (!isCard(last)) {
-				continue;
-			}
-
-			// 最後のビュー以外で見えている左端のビューの右座標を取得します。
-			for (int j = 0; j < i; j++) {
-				final View view = getChildAt(j);
-				if (!isCard(view)) {
-					continue;
-				}
-				if (((int) view.getX() + view.getPaddingLeft()) == mMinLeftMost) {
-					baseIndex = j;
-					baseX = view.getX() + view.getWidth() - view.getPaddingRight();
-					continue;
+	private void showNextCard() {
+		DeckTrace.beginSection("Deck.showNextCard");
+		try {
+			final DeckGeometry geometry = mGeometry;
+			geometry.next();
+
+			final int size = geometry.size();
+			final int hideUnderCard = geometry.getHideUnderCard();
+			int bounceDelay = 0;
+			for (int i = 0; i < size; i++) {
+				if (geometry.isAnimated(i)) {
+					bounceDelay = moveCard(i, true, i == hideUnderCard);
 				}
 			}
-			break;
-		}
+			geometry.commit();
 
-		for (int i = baseIndex - 1; i <= baseIndex; i++) {
-			final View child = getChildAt(i);
-			if (!isCard(child)) {
-				continue;
+			final int bounceCard = geometry.getBounceCard();
+			if (bounceCard != DeckGeometry.NO_CARD) {
+				animation(getCard(bounceCard), bounceDelay, geometry.getBounceDistance());
 			}
-			child.setVisibility(View.VISIBLE);
+			mAnimationDriver.beginTransition(DeckMetrics.TRANSITION_NEXT);
+		} finally {
+			DeckTrace.endSection();
 		}
+	}
 
-		int bounceDelay = 0;
-		for (int i = baseIndex + 1; i < count; i++) {
-			final View child = getChildAt(i);
-			if (!isCard(child)) {
-				continue;
+	/**
+	 * 子ビューを全体的に右へスライドさせます。
+	 */
+	private void showPreviousCard() {
+		DeckTrace.beginSection("Deck.showPreviousCard");
+		try {
+			final DeckGeometry geometry = mGeometry;
+			geometry.previous();
+
+			final int bounceCard = geometry.getBounceCard();
+			final int size = geometry.size();
+			int bounceDelay = 0;
+			for (int i = bounceCard + 1; i < size; i++) {
+				bounceDelay = moveCard(i, true, false);
 			}
-			final float oldX = child.getX();
-			final float newX = baseX - child.getPaddingLeft() + mSpacing;
-			child.setX(newX);
-			baseX = newX + child.getWidth() - child.getPaddingRight();
-			bounceDelay = animation(child, oldX, newX, true, false);
-		}
+			geometry.commit();
 
-		// 見えている左端のビューをバウンドさせます。
-		final View bounceCard = getChildAt(baseIndex);
-		if (bounceCard != null) {
-			animation(bounceCard, bounceDelay, mBounce);
+			// 見えている左端のビューをバウンドさせます。
+			if (bounceCard != DeckGeometry.NO_CARD) {
+				animation(getCard(bounceCard), bounceDelay, geometry.getBounceDistance());
+			}
+			mAnimationDriver.beginTransition(DeckMetrics.TRANSITION_PREVIOUS);
+		} finally {
+			DeckTrace.endSection();
 		}
 	}
 
@@ -767,88 +1063,318 @@ public class Deck extends FrameLayout {
 	 * 子ビューを全体的に右へスライドさせて最初のカードを見せます。
 	 */
 	public void showFirstCard() {
-		// 最初のカードが見えている場合は何も行いません。
-		if (getCardLeft(getChildAt(getFirstCardPosition())) > mMinLeftMost) {
-			return;
-		}
+		DeckTrace.beginSection("Deck.showFirstCard");
+		try {
+			if (mAdapter != null) {
+				ensureFirstWindow();
+			}
+			final DeckGeometry geometry = mGeometry;
+			// 最初のカードが見えている場合は何も行いません。
+			if (!geometry.first()) {
+				return;
+			}
 
-		final int count = getChildCount();
-		float baseX = mMaxLeftMost - mSpacing;
-		for (int i = 0; i < count; i++) {
-			final View view = getChildAt(i);
-			if (!isCard(view)) {
-				continue;
+			final int size = geometry.size();
+			for (int i = 0; i < size; i++) {
+				moveCard(i, true, false);
 			}
-			final float oldX = view.getX();
-			final float newX = baseX - view.getPaddingLeft() + mSpacing;
-			view.setX(newX);
-			view.setVisibility(View.VISIBLE);
-			baseX = newX + view.getWidth() - view.getPaddingRight();
-			animation(view, oldX, newX, true, false);
+			geometry.commit();
+			mAnimationDriver.beginTransition(DeckMetrics.TRANSITION_FIRST);
+		} finally {
+			DeckTrace.endSection();
 		}
 	}
 
+	/**
+	 * 下に隠れて見えないカードを描画対象から除外します。<p>
+	 * 除外するカードは描画時にデッキカードの左右座標から算出されるため、このメソッドは再描画を要求するのみです。
+	 * 可視状態は変更しないため、レイアウトは発生しません。
+	 * 
+	 * @see #dispatchDraw(Canvas)
+	 */
 	protected void hideUnderCards() {
-		// 表示する必要のないカードを非表示にして描画性能を向上させます。
-		final int pos = getLeftCardPosition() - 1;
-		for (int i = 0; i < pos; i++) {
-			final View child = getChildAt(i);
-			if (isCard(child)) {
-				child.setVisibility(View.GONE);
-			}
+		DeckTrace.beginSection("Deck.hideUnderCards");
+		try {
+			invalidate();
+		} finally {
+			DeckTrace.endSection();
 		}
 	}
 
 	//////////////////////////////////////////////////////////////////////////
-	// アニメーション
+	// 描画
 
-	private static final String X_ANIMATION = "x";
-	private static final int MAX_DURATION = 300;
-	private static final int ONE = 1;
+	/**
+	 * 上のデッキカードに一部だけ覆われたデッキカードを見えている範囲に切り抜いて描画するかどうかを保持します。
+	 */
+	private boolean mOverdrawClippingEnabled;
 
 	/**
-	 * スライドアニメーションを行います。
-	 * {@code bounce} が有効な場合は、スライドアニメーションの後にバウンドアニメーションも行います。
+	 * 上のデッキカードに一部だけ覆われたデッキカードを見えている範囲に切り抜いて描画するかどうかを設定します。<p>
+	 * 有効な場合、重なったデッキカードの背景や影のうち上のデッキカードに隠れる部分は描画されず、オーバードローが削減されます。
 	 * 
-	 * @param card アニメーションさせるビュー
-	 * @param startX 開始 X 座標 (現 X 座標)
-	 * @param endX 終了 X 座標 (新 X 座標)
-	 * @param bounce バウンドアニメーションを行うかどうか
-	 * @param hideUnderCards 
-	 * @return 移動アニメーションにかかる時間 (ミリ秒)
+	 * @param enabled 有効にする場合は {@code true}
 	 */
-	private int animation(final View card, final float startX, final float endX, final boolean bounce, final boolean hideUnderCards) {
-		final AnimatorSet animatorSet = new AnimatorSet();
-
-		final ObjectAnimator moveAnimation = ObjectAnimator.ofFloat(card, X_ANIMATION, startX, endX);
-		final int duration = Math.min((int) (Math.abs(startX - endX) * 0.00085F * 0.8F * 1000), MAX_DURATION);
-		moveAnimation.setDuration(duration);
-		moveAnimation.setInterpolator(new LinearInterpolator());
-		final AnimatorSet.Builder builder = animatorSet.play(moveAnimation);
-
-		if (bounce) {
-			final ObjectAnimator bounceAnimation = ObjectAnimator.ofFloat(card, X_ANIMATION, endX, endX + (startX < endX ? mBounce : -mBounce));
-			bounceAnimation.setDuration(mBounceDuration);
-			bounceAnimation.setRepeatCount(ONE);
-			bounceAnimation.setRepeatMode(ValueAnimator.REVERSE);
-			bounceAnimation.setInterpolator(new DecelerateInterpolator());
-			builder.before(bounceAnimation);
-		}
-
-		if (hideUnderCards) {
-			// バウンドアニメーションを行わない場合(つまり onAddView から呼び出された場合)は、アニメーション終了時に下に隠れるカードを非表示にしてその後の描画性能を向上させます。
-			animatorSet.addListener(new AnimatorListener() {	// NOPMD
-				@Override public void onAnimationStart(final Animator animation) {}
-				@Override public void onAnimationCancel(final Animator animation) {}
-				@Override public void onAnimationRepeat(final Animator animation) {}
-				@Override
-				public void onAnimationEnd(final Animator animation) {
-					hideUnderCards();
-				}
-			});
+	public void setOverdrawClippingEnabled(final boolean enabled) {
+		if (mOverdrawClippingEnabled != enabled) {
+			mOverdrawClippingEnabled = enabled;
+			invalidate();
 		}
+	}
+
+	public boolean isOverdrawClippingEnabled() { return mOverdrawClippingEnabled; }
+
+	/**
+	 * 描画の前に、上のデッキカードに完全に覆われて見えないデッキカードを算出します。<p>
+	 * 上から順にデッキカードの左右座標を走査し、上のデッキカード群が覆う範囲に収まるデッキカードを覆われていると判断します。
+	 * 覆われたデッキカードのうち、すぐ上のデッキカードも覆われているものを描画対象から除外します。
+	 * これは従来の非表示処理と同様に、見えている左端のデッキカードの一つ背面のデッキカードまでは描画するためです。
+	 */
+	@Override
+	protected void dispatchDraw(final Canvas canvas) {
+		float coverLeft = 0F;
+		float coverRight = 0F;
+		boolean covering = false;
+		boolean aboveCovered = false;
+		int visible = 0;
+		for (int i = mGeometry.size() - 1; i >= 0; i--) {
+			final View card = getCard(i);
+			final float left = getCardLeft(card);
+			final float right = getCardRight(card);
+			final boolean covered = covering && left >= coverLeft && right <= coverRight;
+			final boolean culled = covered && aboveCovered;
+			if (card instanceof DeckCardLayout) {
+				final DeckCardLayout layout = (DeckCardLayout) card;
+				layout.setCulled(culled);
+
+				// 上のデッキカード群に一部だけ覆われている場合は、見えている側だけを描画するように切り抜きます。
+				if (mOverdrawClippingEnabled && covering && !covered) {
+					if (left < coverLeft && right > coverLeft && right <= coverRight) {
+						layout.setOverdrawClip(0F, coverLeft);
+					} else if (left >= coverLeft && left < coverRight && right > coverRight) {
+						layout.setOverdrawClip(coverRight, getWidth());
+					} else {
+						layout.setOverdrawClip(0F, 0F);
+					}
+				} else {
+					layout.setOverdrawClip(0F, 0F);
+				}
+			}
+			aboveCovered = covered;
+			if (!culled && card.getVisibility() == VISIBLE) {
+				visible++;
+			}
+
+			if (isOpaqueCover(card)) {
+				if (!covering || right < coverLeft || left > coverRight) {
+					coverLeft = left;
+					coverRight = right;
+					covering = true;
+				} else {
+					coverLeft = Math.min(coverLeft, left);
+					coverRight = Math.max(coverRight, right);
+				}
+			}
+		}
+		if (mMetrics != null) {
+			mMetrics.onVisibleCards(visible);
+		}
+		super.dispatchDraw(canvas);
+	}
+
+	@Override
+	protected boolean drawChild(final Canvas canvas, final View child, final long drawingTime) {
+		if (child instanceof DeckCardLayout) {
+			final DeckCardLayout card = (DeckCardLayout) child;
+			if (card.isCulled()) {
+				return false;
+			}
+			if (card.hasOverdrawClip()) {
+				final int saveCount = canvas.save();
+				canvas.clipRect(card.getOverdrawClipLeft(), 0F, card.getOverdrawClipRight(), getHeight());
+				final boolean more = super.drawChild(canvas, child, drawingTime);
+				canvas.restoreToCount(saveCount);
+				return more;
+			}
+		}
+		return super.drawChild(canvas, child, drawingTime);
+	}
+
+	/**
+	 * 指定されたデッキカードが下のデッキカードを覆い隠すかどうかを返します。<p>
+	 * フラグメントの追加/置換アニメーションなどで変形中または半透明のデッキカードは覆い隠さないものとします。
+	 * 
+	 * @param card デッキカード
+	 * @return 覆い隠す場合は {@code true}
+	 */
+	private static boolean isOpaqueCover(final View card) {
+		return card.getVisibility() == VISIBLE
+				&& card.getAlpha() == 1F
+				&& card.getRotationY() == 0F
+				&& card.getScaleX() == 1F
+				&& card.getScaleY() == 1F
+				&& card.getTranslationY() == 0F;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// 位置計算
+
+	/**
+	 * 指定された {@link DeckGeometry} 上の位置のデッキカードを返します。
+	 * 
+	 * @param card {@link DeckGeometry} 上の位置
+	 * @return デッキカード
+	 */
+	private View getCard(final int card) {
+		return mCards.get(card);
+	}
+
+	/**
+	 * 子ビューが追加された場合に {@link DeckGeometry} の索引を更新します。
+	 * 
+	 * @param child 追加された子ビュー
+	 */
+	private void onChildAdded(final View child) {
+		if (!isCard(child)) {
+			updateChildPositions();
+			return;
+		}
+		final int childPosition = indexOfChild(child);
+		int card = mCards.size();
+		while (card > 0 && mGeometry.getChildPosition(card - 1) >= childPosition) {
+			card--;
+		}
+		mCards.add(card, child);
+		((DeckCardLayout) child).setMeasureGeneration(-1);
+		markLayoutDirty(card);
+		mGeometry.insert(card, childPosition, child.getX(), child.getWidth(), child.getPaddingLeft(), child.getPaddingRight());
+		updateChildPositions();
+	}
+
+	/**
+	 * 子ビューが削除された場合に {@link DeckGeometry} の索引を更新します。
+	 * 
+	 * @param child 削除された子ビュー
+	 */
+	private void onChildRemoved(final View child) {
+		if (isCard(child)) {
+			final int card = mCards.indexOf(child);
+			if (card >= 0) {
+				mCards.remove(card);
+				mGeometry.remove(card);
+				markLayoutDirty(card);
+			}
+		}
+		updateChildPositions();
+	}
+
+	/**
+	 * デッキカードの子ビューとしての位置を更新します。
+	 */
+	private void updateChildPositions() {
+		final DeckGeometry geometry = mGeometry;
+		final int size = geometry.size();
+		final int count = getChildCount();
+		int card = 0;
+		for (int i = 0; i < count && card < size; i++) {
+			if (getChildAt(i) == mCards.get(card)) {
+				geometry.setChildPosition(card++, i);
+			}
+		}
+	}
+
+	/**
+	 * 子ビューの追加/削除を {@link DeckGeometry} の索引へ反映した後に、アプリケーションが設定したリスナへ通知します。
+	 */
+	private final class PassThroughHierarchyChangeListener implements ViewGroup.OnHierarchyChangeListener {
+
+		private ViewGroup.OnHierarchyChangeListener mOnHierarchyChangeListener;
+
+		@Override
+		public void onChildViewAdded(final View parent, final View child) {
+			if (parent == Deck.this) {
+				onChildAdded(child);
+			}
+			if (mOnHierarchyChangeListener != null) {
+				mOnHierarchyChangeListener.onChildViewAdded(parent, child);
+			}
+		}
+
+		@Override
+		public void onChildViewRemoved(final View parent, final View child) {
+			if (parent == Deck.this) {
+				onChildRemoved(child);
+			}
+			if (mOnHierarchyChangeListener != null) {
+				mOnHierarchyChangeListener.onChildViewRemoved(parent, child);
+			}
+		}
+
+	}
+
+	@Override
+	public void setOnHierarchyChangeListener(final OnHierarchyChangeListener listener) {
+		// 索引を更新するリスナは常に設定したままとします。
+		mPassThroughListener.mOnHierarchyChangeListener = listener;
+	}
 
-		animatorSet.start();
+	/**
+	 * {@link DeckGeometry} で算出した移動先座標をアニメーションを行わずにデッキカードへ反映します。
+	 */
+	private void applyGeometry() {
+		final DeckGeometry geometry = mGeometry;
+		final int size = geometry.size();
+		for (int i = 0; i < size; i++) {
+			if (geometry.isMoved(i)) {
+				final View child = getCard(i);
+				promoteLayer(child);
+				child.setX(geometry.getTargetX(i));
+			}
+		}
+		geometry.commit();
+	}
+
+	/**
+	 * {@link DeckGeometry} で算出した移動先座標へ指定されたデッキカードを移動してスライドアニメーションを行います。
+	 * 
+	 * @param card デッキカード
+	 * @param bounce バウンドアニメーションを行うかどうか
+	 * @param hideUnderCards アニメーション終了時に下に隠れるカードを非表示にするかどうか
+	 * @return 移動アニメーションにかかる時間 (ミリ秒)
+	 */
+	private int moveCard(final int card, final boolean bounce, final boolean hideUnderCards) {
+		final DeckGeometry geometry = mGeometry;
+		final View child = getCard(card);
+		final float oldX = child.getX();
+		final float newX = geometry.getTargetX(card);
+		child.setX(newX);
+		return animation(child, oldX, newX, bounce, hideUnderCards);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// アニメーション
+
+	/**
+	 * すべてのデッキカードのスライド/バウンドアニメーションを駆動するドライバを保持します。
+	 */
+	private final DeckAnimationDriver mAnimationDriver = new DeckAnimationDriver(this);
+
+	/**
+	 * スライドアニメーションを行います。
+	 * {@code bounce} が有効な場合は、スライドアニメーションの後にバウンドアニメーションも行います。
+	 * 
+	 * @param card アニメーションさせるビュー
+	 * @param startX 開始 X 座標 (現 X 座標)
+	 * @param endX 終了 X 座標 (新 X 座標)
+	 * @param bounce バウンドアニメーションを行うかどうか
+	 * @param hideUnderCards 
+	 * @return 移動アニメーションにかかる時間 (ミリ秒)
+	 */
+	private int animation(final View card, final float startX, final float endX, final boolean bounce, final boolean hideUnderCards) {
+		final int duration = DeckGeometry.duration(startX, endX);
+		promoteLayer(card);
+		// バウンドアニメーションを行わない場合(つまり onAddView から呼び出された場合)は、アニメーション終了時に下に隠れるカードを非表示にしてその後の描画性能を向上させます。
+		mAnimationDriver.move(card, startX, endX, duration, bounce ? (startX < endX ? mBounce : -mBounce) : 0, mBounceDuration, hideUnderCards);
 		return duration;
 	}
 
@@ -860,22 +1386,437 @@ public class Deck extends FrameLayout {
 	 * @param bounce バウンド幅 (ピクセル)
 	 */
 	private void animation(final View bounceCard, final int delay, final int bounce) {
-		final AnimatorSet animatorSet = new AnimatorSet();
-
 		// NOTE - bounce animation だけだと同じ感じにならない(しょうもない)ので移動しない移動アニメーションもつけている
-		final ObjectAnimator moveAnimation = ObjectAnimator.ofFloat(bounceCard, X_ANIMATION, bounceCard.getX(), bounceCard.getX());
-		moveAnimation.setDuration(delay);
-		moveAnimation.setInterpolator(new LinearInterpolator());
-		final AnimatorSet.Builder builder = animatorSet.play(moveAnimation);
+		promoteLayer(bounceCard);
+		mAnimationDriver.bounce(bounceCard, delay, bounce, mBounceDuration);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// ハードウェアレイヤー
+
+	/**
+	 * 移動中のデッキカードをハードウェアレイヤーへ昇格させるかどうかを保持します。
+	 */
+	private boolean mHardwareLayersEnabled;
+
+	/**
+	 * ハードウェアレイヤーへ昇格させたデッキカードと元のレイヤータイプを保持します。
+	 */
+	private final ArrayList<View> mLayerCards = new ArrayList<View>();
+	private int[] mLayerTypes = new int[8];
+
+	/**
+	 * 移動中のデッキカードをハードウェアレイヤーへ昇格させるかどうかを設定します。<p>
+	 * 有効な場合、ドラッグやアニメーションで移動するデッキカードはハードウェアレイヤーへ昇格され、
+	 * 移動中は内容を再描画せずにレイヤーの平行移動のみで描画されます。
+	 * すべての移動が落ち着いた時点で元のレイヤータイプへ戻されます。
+	 * 内容自体がアニメーションするデッキカードは {@link DeckCardLayout#isHardwareLayerAllowed()} で除外できます。
+	 * 
+	 * @param enabled 有効にする場合は {@code true}
+	 */
+	public void setHardwareLayersEnabled(final boolean enabled) {
+		mHardwareLayersEnabled = enabled;
+		if (!enabled) {
+			restoreLayers();
+		}
+	}
+
+	public boolean isHardwareLayersEnabled() { return mHardwareLayersEnabled; }
+
+	/**
+	 * 指定されたデッキカードをハードウェアレイヤーへ昇格させます。
+	 * 
+	 * @param card デッキカード
+	 */
+	private void promoteLayer(final View card) {
+		if (!mHardwareLayersEnabled || !isHardwareAccelerated() || !((DeckCardLayout) card).isHardwareLayerAllowed()) {
+			return;
+		}
+		final int layerType = card.getLayerType();
+		if (layerType == LAYER_TYPE_HARDWARE) {
+			return;	// 昇格済みまたはアプリケーションが設定済みの場合
+		}
+		final int size = mLayerCards.size();
+		if (size == mLayerTypes.length) {
+			final int[] layerTypes = new int[size * 2];
+			System.arraycopy(mLayerTypes, 0, layerTypes, 0, size);
+			mLayerTypes = layerTypes;
+		}
+		mLayerTypes[size] = layerType;
+		mLayerCards.add(card);
+		card.setLayerType(LAYER_TYPE_HARDWARE, null);
+	}
+
+	/**
+	 * ハードウェアレイヤーへ昇格させたデッキカードを元のレイヤータイプへ戻します。
+	 */
+	private void restoreLayers() {
+		for (int i = mLayerCards.size() - 1; i >= 0; i--) {
+			mLayerCards.remove(i).setLayerType(mLayerTypes[i], null);
+		}
+	}
+
+	/**
+	 * ドラッグもアニメーションも行われていない場合に、ハードウェアレイヤーを元に戻します。
+	 */
+	private void restoreLayersIfSettled() {
+		if (!mIsBeingDragged && mAnimationDriver.getRunningCount() == 0) {
+			restoreLayers();
+		}
+	}
+
+	/**
+	 * {@link DeckAnimationDriver} のすべてのアニメーションが終了した場合に呼び出されます。
+	 */
+	void onAnimationSettled() {
+		restoreLayersIfSettled();
+		// ウィンドウから切り離している途中は子ビューを追加/削除しません。
+		if (!mDetaching) {
+			recycleWindow();
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// 計測
+
+	/**
+	 * 性能計測値のシンクを保持します。{@code null} の場合は計測を行いません。
+	 */
+	private DeckMetrics mMetrics;
+
+	/**
+	 * 性能計測値のシンクを設定します。<p>
+	 * 設定した場合、計測処理、レイアウト処理、ドラッグ中の移動処理の時間と、
+	 * デッキカードの遷移アニメーションのフレーム間隔と欠落したフレーム、アニメーション中と描画対象のデッキカードの数を通知します。
+	 * {@code null} を設定した場合は、時刻の取得も含めて計測を一切行いません。
+	 * 
+	 * @param metrics 性能計測値のシンク。または {@code null}
+	 * @see DeckMetricsRecorder
+	 */
+	public void setMetrics(final DeckMetrics metrics) { mMetrics = metrics; }
+	public DeckMetrics getMetrics() { return mMetrics; }
+
+	//////////////////////////////////////////////////////////////////////////
+	// アダプター
+
+	/**
+	 * 見えている左端のデッキカードより背面に生成しておくデッキカードの数です。
+	 */
+	private static final int LOWER_RESERVE = 2;
+
+	/**
+	 * {@link #ensureFirstWindow()} で幅が確定していないデッキカードを生成する最大数です。
+	 */
+	private static final int FIRST_WINDOW_LIMIT = 8;
+
+	/**
+	 * 生成したデッキカードの配置方法です。
+	 */
+	private static final int PLACEMENT_STACKED = 0;
+	private static final int PLACEMENT_CHAINED = 1;
+	private static final int PLACEMENT_APPEND = 2;
+
+	private DeckAdapter mAdapter;
+
+	/**
+	 * {@link #mAdapter} から最後に取得したデッキカードの数を保持します。
+	 */
+	private int mAdapterCount;
+
+	private final DeckCardRecycler mRecycler = new DeckCardRecycler();
+
+	private final DataSetObserver mDataSetObserver = new DataSetObserver() {
+		@Override
+		public void onChanged() {
+			onDataSetChanged();
+		}
+		@Override
+		public void onInvalidated() {
+			onDataSetChanged();
+		}
+	};
+
+	/**
+	 * デッキカードを供給するアダプターを設定します。<p>
+	 * アダプターが設定されている場合、このデッキは見えているデッキカードと次に見える可能性のあるデッキカードのみを生成します。
+	 * 見えなくなったデッキカードはすべてのアニメーションが終了した時点で取り除かれ、
+	 * デッキカードの種類ごとに再利用されるため、デッキカードの総数にかかわらず子ビューの数は一定に保たれます。
+	 * 既存のデッキカードはすべて取り除かれます。
+	 * 
+	 * @param adapter アダプター。または {@code null}
+	 */
+	public void setAdapter(final DeckAdapter adapter) {
+		if (mAdapter != null) {
+			mAdapter.unregisterDataSetObserver(mDataSetObserver);
+		}
+		mAdapter = null;
+		mAnimationDriver.end();
+		for (int i = mGeometry.size() - 1; i >= 0; i--) {
+			removeView(getCard(i));
+		}
+
+		mAdapter = adapter;
+		mAdapterCount = 0;
+		mRecycler.setCardTypeCount(adapter == null ? 0 : adapter.getCardTypeCount());
+		if (adapter != null) {
+			adapter.registerDataSetObserver(mDataSetObserver);
+			populate();
+		}
+	}
+
+	public DeckAdapter getAdapter() { return mAdapter; }
+
+	/**
+	 * 最前面のデッキカードとその背面のデッキカードを、アニメーションを行わずに生成します。
+	 */
+	private void populate() {
+		final int count = mAdapter.getCount();
+		mAdapterCount = count;
+		if (count == 0) {
+			return;
+		}
+		final int last = count - 1;
+		for (int position = Math.max(last - LOWER_RESERVE, 0); position < last; position++) {
+			materialize(position, mGeometry.size(), PLACEMENT_STACKED);
+		}
+		materialize(last, mGeometry.size(), PLACEMENT_APPEND);
+	}
+
+	/**
+	 * アダプターのデッキカードの数または内容が変更された場合に呼び出されます。<p>
+	 * 取り除かれたデッキカードを再利用し、残りのデッキカードへ内容を設定し直します。
+	 * 最前面に追加されたデッキカードは {@link #addView(View)} と同様にアニメーションで表示します。
+	 */
+	private void onDataSetChanged() {
+		final DeckAdapter adapter = mAdapter;
+		final DeckGeometry geometry = mGeometry;
+		final int oldCount = mAdapterCount;
+		final int count = adapter.getCount();
+		mAdapterCount = count;
+
+		for (int i = geometry.size() - 1; i >= 0 && getAdapterPosition(i) >= count; i--) {
+			recycle(i);
+		}
+		for (int i = 0; i < geometry.size(); i++) {
+			rebind(i);
+		}
+
+		final int added = count - oldCount;
+		final int size = geometry.size();
+		if (size == 0 || added > LOWER_RESERVE + 1) {
+			// 一度に多くのデッキカードが追加された場合は、アニメーションを行わずに最前面から生成し直します。
+			for (int i = size - 1; i >= 0; i--) {
+				recycle(i);
+			}
+			populate();
+			return;
+		}
+		if (added > 0 && getAdapterPosition(size - 1) == oldCount - 1) {
+			for (int position = oldCount; position < count; position++) {
+				addView(obtainCard(position));
+			}
+		}
+		ensureWindow();
+		recycleWindow();
+	}
+
+	/**
+	 * 見えているデッキカードの前後で次に見える可能性のあるデッキカードが生成されていない場合は生成します。<p>
+	 * 背面側は見えている左端のデッキカードの下に {@link #LOWER_RESERVE} 枚、
+	 * 前面側はこのビューの幅の 2 倍の位置を超えるまでデッキカードを生成します。
+	 */
+	private void ensureWindow() {
+		if (mAdapter == null) {
+			return;
+		}
+		final DeckGeometry geometry = mGeometry;
+		while (geometry.size() > 0 && geometry.getLeftCard() < LOWER_RESERVE) {
+			final int first = getAdapterPosition(0);
+			if (first <= 0) {
+				break;
+			}
+			materialize(first - 1, 0, PLACEMENT_STACKED);
+		}
 
-		final ObjectAnimator bounceAnimation = ObjectAnimator.ofFloat(bounceCard, X_ANIMATION, bounceCard.getX(), bounceCard.getX() + bounce);
-		bounceAnimation.setDuration(mBounceDuration);
-		bounceAnimation.setRepeatCount(ONE);
-		bounceAnimation.setRepeatMode(ValueAnimator.REVERSE);
-		bounceAnimation.setInterpolator(new DecelerateInterpolator());
-		builder.before(bounceAnimation);
+		final int extent = getWidth() * 2;
+		while (extent > 0 && geometry.size() > 0) {
+			final int top = geometry.size() - 1;
+			final int last = getAdapterPosition(top);
+			if (last >= mAdapterCount - 1 || getCardLeft(getCard(top)) >= extent) {
+				break;
+			}
+			materialize(last + 1, top + 1, PLACEMENT_CHAINED);
+		}
+	}
 
-		animatorSet.start();
+	/**
+	 * 最初のデッキカードから並べた場合に見える可能性のあるデッキカードを生成します。<p>
+	 * 生成されていないデッキカードは最も背面の位置から順に、左端にスタックされた状態で生成します。
+	 * このビューや生成したデッキカードの幅がまだ確定していない (最初のレイアウトの前の) 場合は、
+	 * すべてのデッキカードを生成しないよう、幅の確定していない状態で生成するデッキカードを {@link #FIRST_WINDOW_LIMIT} 枚までに制限します。
+	 * 不足するデッキカードはドラッグ時に {@link #ensureWindow()} で生成されます。
+	 */
+	private void ensureFirstWindow() {
+		final DeckGeometry geometry = mGeometry;
+		final int extent = getWidth() * 2;
+		float right = mMaxLeftMost;
+		int unsized = 0;
+		for (int slot = 0, position = 0; position < mAdapterCount && unsized < FIRST_WINDOW_LIMIT && (extent == 0 || right < extent); slot++, position++) {
+			final View card;
+			if (slot < geometry.size() && getAdapterPosition(slot) == position) {
+				card = getCard(slot);
+			} else {
+				card = materialize(position, slot, PLACEMENT_STACKED);
+			}
+			final int width = card.getWidth() != 0 ? card.getWidth() : card.getMeasuredWidth();
+			if (extent == 0 || width == 0) {
+				unsized++;
+			}
+			right += Math.max(width - card.getPaddingLeft() - card.getPaddingRight(), 0) + mSpacing;
+		}
+	}
+
+	/**
+	 * 見えなくなったデッキカードを取り除いて再利用します。<p>
+	 * ドラッグ中やアニメーション中は何も行いません。
+	 */
+	private void recycleWindow() {
+		if (mAdapter == null || mIsBeingDragged || mAnimationDriver.getRunningCount() != 0) {
+			return;
+		}
+		final DeckGeometry geometry = mGeometry;
+		while (geometry.getLeftCard() > LOWER_RESERVE) {
+			recycle(0);
+		}
+
+		// 前面側は画面外の 2 枚目以降のデッキカードと、位置が連続していない画面外のデッキカードを取り除きます。
+		final int extent = getWidth() * 2;
+		for (int top = geometry.size() - 1; top > 0; top = geometry.size() - 1) {
+			if (getCardLeft(getCard(top)) < extent) {
+				break;
+			}
+			if (getCardLeft(getCard(top - 1)) < extent && getAdapterPosition(top - 1) == getAdapterPosition(top) - 1) {
+				break;
+			}
+			recycle(top);
+		}
+		ensureWindow();
+	}
+
+	/**
+	 * 指定された位置のデッキカードをアダプターから取得します。
+	 * 
+	 * @param position アダプター上の位置
+	 * @return デッキカード
+	 */
+	private DeckCardLayout obtainCard(final int position) {
+		final DeckAdapter adapter = mAdapter;
+		final int type = adapter.getCardType(position);
+		final DeckCardLayout convertCard = mRecycler.get(type);
+		final DeckCardLayout card = adapter.getCard(position, convertCard, this);
+		if (convertCard != null && card != convertCard) {
+			mRecycler.put(convertCard);
+		}
+		card.setAdapterPosition(position);
+		card.setCardType(type);
+		return card;
+	}
+
+	/**
+	 * 指定された位置のデッキカードを生成し、アニメーションを行わずに指定された {@link DeckGeometry} 上の位置へ配置します。
+	 * 
+	 * @param position アダプター上の位置
+	 * @param slot {@link DeckGeometry} 上の位置
+	 * @param placement 配置方法
+	 * @return デッキカード
+	 */
+	private DeckCardLayout materialize(final int position, final int slot, final int placement) {
+		final DeckCardLayout card = obtainCard(position);
+		card.setBackgroundResource(R.drawable.deck_card_background);
+
+		final DeckGeometry geometry = mGeometry;
+		final float x;
+		if (placement == PLACEMENT_CHAINED) {
+			final View v = getCard(slot - 1);
+			x = v.getX() + v.getWidth() - v.getPaddingRight() - card.getPaddingLeft() + mSpacing;
+		} else if (placement == PLACEMENT_APPEND) {
+			final ViewGroup.LayoutParams lp = card.getLayoutParams();
+			x = geometry.getAppendX(card.getPaddingLeft(), card.getPaddingRight(), lp == null ? 0 : lp.width);
+		} else {
+			x = mMinLeftMost - card.getPaddingLeft();
+		}
+		attachCard(card, slot, x);
+		return card;
+	}
+
+	/**
+	 * 指定されたデッキカードを指定された {@link DeckGeometry} 上の位置へ追加します。<p>
+	 * このビューが計測済みの場合は、レイアウト処理を待たずにその場で計測とレイアウトを行います。
+	 * 
+	 * @param card デッキカード
+	 * @param slot {@link DeckGeometry} 上の位置
+	 * @param x X 座標
+	 */
+	private void attachCard(final DeckCardLayout card, final int slot, final float x) {
+		final DeckGeometry geometry = mGeometry;
+		final int index = slot < geometry.size() ? geometry.getChildPosition(slot) : getChildCount();
+		ViewGroup.LayoutParams lp = card.getLayoutParams();
+		if (lp == null) {
+			lp = generateDefaultLayoutParams();
+		}
+		card.setX(x);
+		addViewInLayout(card, index, lp, true);
+
+		if (mLastWidthMeasureSpec != -1) {
+			measureCard(slot, mLastWidthMeasureSpec, mLastHeightMeasureSpec, MeasureSpec.getSize(mLastWidthMeasureSpec));
+			layoutCard(slot);
+		} else {
+			requestLayout();
+		}
+		invalidate();
+	}
+
+	/**
+	 * 指定された {@link DeckGeometry} 上の位置のデッキカードへアダプターの内容を設定し直します。<p>
+	 * アダプターが別のデッキカードを返した場合は、同じ位置で置き換えます。
+	 * 
+	 * @param slot {@link DeckGeometry} 上の位置
+	 */
+	private void rebind(final int slot) {
+		final DeckAdapter adapter = mAdapter;
+		final DeckCardLayout card = (DeckCardLayout) getCard(slot);
+		final int position = card.getAdapterPosition();
+		final int type = adapter.getCardType(position);
+		final DeckCardLayout newCard = adapter.getCard(position, type == card.getCardType() ? card : null, this);
+		if (newCard == card) {
+			return;
+		}
+		final float x = card.getX();
+		recycle(slot);
+		newCard.setAdapterPosition(position);
+		newCard.setCardType(type);
+		newCard.setBackgroundResource(R.drawable.deck_card_background);
+		attachCard(newCard, slot, x);
+	}
+
+	/**
+	 * 指定された {@link DeckGeometry} 上の位置のデッキカードを取り除いて再利用のために保持します。
+	 * 
+	 * @param slot {@link DeckGeometry} 上の位置
+	 */
+	private void recycle(final int slot) {
+		final DeckCardLayout card = (DeckCardLayout) getCard(slot);
+		mAnimationDriver.cancel(card);
+		removeViewInLayout(card);
+		invalidate();
+		card.setAdapterPosition(-1);
+		card.setCulled(false);
+		card.setOverdrawClip(0F, 0F);
+		mRecycler.put(card);
+	}
+
+	private int getAdapterPosition(final int slot) {
+		return ((DeckCardLayout) getCard(slot)).getAdapterPosition();
 	}
 
 	//////////////////////////////////////////////////////////////////////////
@@ -892,20 +1833,12 @@ public class Deck extends FrameLayout {
 	}
 
 	/**
-	 * このデッキに含まれるデッキカードの数を算出して返します。
+	 * このデッキに含まれるデッキカードの数を返します。
 	 * 
 	 * @return デッキカードの数
 	 */
 	public int getCardCount() {
-		int count = 0;
-		for (int i = getChildCount() - 1; i >= 0; i--) {
-			final View last = getChildAt(i);
-			if (!isCard(last)) {
-				continue;
-			}
-			count++;
-		}
-		return count;
+		return mGeometry.size();
 	}
 
 	/**
@@ -947,13 +1880,8 @@ public class Deck extends FrameLayout {
 	 * @return 最初のデッキカードの位置。または {@link #CARD_NOT_FOUND}
 	 */
 	public int getFirstCardPosition() {
-		final int count = getChildCount();
-		for (int i = 0; i < count; i++) {
-			if (isCard(getChildAt(i))) {
-				return i;
-			}
-		}
-		return CARD_NOT_FOUND;
+		final DeckGeometry geometry = mGeometry;
+		return geometry.size() == 0 ? CARD_NOT_FOUND : geometry.getChildPosition(0);
 	}
 
 	/**
@@ -962,13 +1890,9 @@ public class Deck extends FrameLayout {
 	 * @return 最後のデッキカードの位置。または {@link #CARD_NOT_FOUND}
 	 */
 	public int getLastCardPosition() {
-		final int count = getChildCount();
-		for (int i = count - 1; i >= 0; i--) {
-			if (isCard(getChildAt(i))) {
-				return i;
-			}
-		}
-		return CARD_NOT_FOUND;
+		final DeckGeometry geometry = mGeometry;
+		final int size = geometry.size();
+		return size == 0 ? CARD_NOT_FOUND : geometry.getChildPosition(size - 1);
 	}
 
 	/**
@@ -977,21 +1901,9 @@ public class Deck extends FrameLayout {
 	 * @return 見えているデッキカード群で最も背面のデッキカードの位置。または {@link #CARD_NOT_FOUND}
 	 */
 	public int getLeftCardPosition() {
-		int pos = getLastCardPosition();
-		if (pos == CARD_NOT_FOUND) {
-			return CARD_NOT_FOUND;
-		}
-
-		for (int i = pos - 1; i >= 0; i--) {
-			final View view = getChildAt(i);
-			if (isCard(view)) {
-				pos = i;
-				if (getCardLeft(view) == mMinLeftMost) {
-					break;
-				}
-			}
-		}
-		return pos;
+		final DeckGeometry geometry = mGeometry;
+		final int left = geometry.getLeftCard();
+		return left == DeckGeometry.NO_CARD ? CARD_NOT_FOUND : geometry.getChildPosition(left);
 	}
 
 	/**
@@ -1000,15 +1912,9 @@ public class Deck extends FrameLayout {
 	 * @return 見えているデッキカード群で最も前面のデッキカードの位置。または {@link #CARD_NOT_FOUND}
 	 */
 	public int getRightCardPosition() {
-		for (int i = getChildCount() - 1; i >= 0; i--) {
-			final View view = getChildAt(i);
-			if (isCard(view)) {
-				if (getCardLeft(view) < getWidth() && getCardRight(view) > getWidth()) {
-					return i;
-				}
-			}
-		}
-		return CARD_NOT_FOUND;
+		final DeckGeometry geometry = mGeometry;
+		final int right = geometry.getRightCard();
+		return right == DeckGeometry.NO_CARD ? CARD_NOT_FOUND : geometry.getChildPosition(right);
 	}
 
 	/**
@@ -1022,12 +1928,19 @@ public class Deck extends FrameLayout {
 	public void setLeftMost(final int min, final int max) {
 		mMinLeftMost = min;
 		mMaxLeftMost = max;
+		mGeometry.setLeftMost(min, max);
 	}
 
-	public void setSpacing(final int spacing) { mSpacing = spacing; }
+	public void setSpacing(final int spacing) {
+		mSpacing = spacing;
+		mGeometry.setSpacing(spacing);
+	}
 	public int getSpacing() { return mSpacing; }
 
-	public void setBounce(final int bounce) { mBounce = bounce; }
+	public void setBounce(final int bounce) {
+		mBounce = bounce;
+		mGeometry.setBounce(bounce);
+	}
 	public int getBounce() { return mBounce; }
 
 	public void setBounceDuration(final int duration) { mBounceDuration = duration; }
@@ -1046,9 +1959,32 @@ public class Deck extends FrameLayout {
 		}
 	}
 
+	/**
+	 * フリング時の動作を設定します。
+	 * 
+	 * @param mode {@link #FLING_MODE_STEP} または {@link #FLING_MODE_PHYSICS}
+	 */
+	public void setFlingMode(final int mode) { mFlingMode = mode; }
+	public int getFlingMode() { return mFlingMode; }
+
 	public void setDragWeight(final float weight) { mDragWeight = weight; }
 	public float getDragWeight() { return mDragWeight; }
 
+	/**
+	 * ドラッグ中の指の座標を予測する予測器を設定します。<p>
+	 * 設定した場合、ドラッグ中のデッキカードは次のフレームが表示される時点の指の座標を予測して配置され、入力遅延による指への遅れが軽減されます。
+	 * 予測による移動はビューの座標のみに反映され、次のフレームと指を離した時点で取り消されます。
+	 * 
+	 * @param predictor 予測器。または {@code null} (予測しない場合)
+	 */
+	public void setDragPredictor(final DeckDragPredictor predictor) {
+		mDragPredictor = predictor;
+		if (predictor != null) {
+			predictor.reset();
+		}
+	}
+	public DeckDragPredictor getDragPredictor() { return mDragPredictor; }
+
 	/**
 	 * デッキカード削除用リスナを設定します。
 	 * 
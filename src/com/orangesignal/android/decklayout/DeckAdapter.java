@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import android.database.DataSetObservable;
+import android.database.DataSetObserver;
+
+/**
+ * {@link Deck} へデッキカードを供給するアダプターの基底クラスを提供します。<p>
+ * {@link Deck#setAdapter(DeckAdapter)} で設定されたデッキは、見えているデッキカードとその前後で次に見えるデッキカードのみを生成し、
+ * それ以外のデッキカードはデッキカードの種類ごとに再利用します。
+ * 位置 {@code 0} のデッキカードが最も背面、位置 {@code getCount() - 1} のデッキカードが最も前面となります。
+ *
+ * @author Koji Sugisawa
+ */
+public abstract class DeckAdapter {
+
+	/**
+	 * {@link DeckCardLayout} のデッキカードの種類です。
+	 */
+	public static final int CARD_TYPE_DEFAULT = 0;
+
+	/**
+	 * {@link FixedDeckCardLayout} のデッキカードの種類です。
+	 */
+	public static final int CARD_TYPE_FIXED = 1;
+
+	/**
+	 * {@link FillDeckCardLayout} のデッキカードの種類です。
+	 */
+	public static final int CARD_TYPE_FILL = 2;
+
+	private final DataSetObservable mDataSetObservable = new DataSetObservable();
+
+	/**
+	 * デッキカードの数を返します。
+	 *
+	 * @return デッキカードの数
+	 */
+	public abstract int getCount();
+
+	/**
+	 * 指定された位置のデッキカードの種類を返します。<p>
+	 * 返す値は {@code 0} 以上 {@link #getCardTypeCount()} 未満でなければなりません。
+	 * デフォルトの実装は {@link #CARD_TYPE_DEFAULT} を返します。
+	 *
+	 * @param position 位置
+	 * @return デッキカードの種類
+	 */
+	public int getCardType(final int position) {
+		return CARD_TYPE_DEFAULT;
+	}
+
+	/**
+	 * デッキカードの種類の数を返します。<p>
+	 * 独自の種類を追加するサブクラスはこのメソッドをオーバーライドする必要があります。
+	 *
+	 * @return デッキカードの種類の数
+	 */
+	public int getCardTypeCount() {
+		return 3;
+	}
+
+	/**
+	 * 指定された位置のデッキカードを返します。<p>
+	 * {@code convertCard} が {@code null} でない場合、それは同じ種類の再利用可能なデッキカードです。
+	 * サブクラスは可能な限り {@code convertCard} へ内容を設定して返すべきです。
+	 *
+	 * @param position 位置
+	 * @param convertCard 再利用可能なデッキカード。または {@code null}
+	 * @param parent デッキ
+	 * @return デッキカード
+	 */
+	public abstract DeckCardLayout getCard(int position, DeckCardLayout convertCard, Deck parent);
+
+	public void registerDataSetObserver(final DataSetObserver observer) {
+		mDataSetObservable.registerObserver(observer);
+	}
+
+	public void unregisterDataSetObserver(final DataSetObserver observer) {
+		mDataSetObservable.unregisterObserver(observer);
+	}
+
+	/**
+	 * デッキカードの数または内容が変更されたことをデッキへ通知します。<p>
+	 * 最前面へのデッキカードの追加は、{@link Deck#addView(android.view.View)} と同様にアニメーションで表示されます。
+	 */
+	public void notifyDataSetChanged() {
+		mDataSetObservable.notifyChanged();
+	}
+
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import android.animation.ValueAnimator;
+import android.animation.ValueAnimator.AnimatorUpdateListener;
+import android.content.Context;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+import android.view.animation.AnimationUtils;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * {@link Deck} のすべてのデッキカードのスライド/バウンドアニメーションを単一のクロックで駆動する機能を提供します。<p>
+ * デッキカード毎にアニメーターを生成する代わりに、移動開始/終了座標やバウンド幅を {@link DeckAnimationTracks} の配列で保持し、
+ * 1 つの {@link ValueAnimator} のフレーム毎にすべてのデッキカードの座標をまとめて算出して反映します。
+ * これにより同時に移動するデッキカードは常に同じフレーム時刻で更新されます。
+ * 
+ * @author Koji Sugisawa
+ */
+final class DeckAnimationDriver implements AnimatorUpdateListener, DeckAnimationTracks.Target<View> {
+
+	/**
+	 * クロックとして使用するアニメーターの 1 周期の時間 (ミリ秒) です。
+	 * クロックは無限に繰り返し、すべてのアニメーションが終了した時点で停止します。
+	 */
+	private static final long CLOCK_DURATION = 1000L;
+
+	/**
+	 * 画面のリフレッシュレートを取得できない場合に使用するリフレッシュレート (Hz) です。
+	 */
+	private static final float DEFAULT_REFRESH_RATE = 60F;
+
+	private static final int NO_TRANSITION = -1;
+
+	/**
+	 * {@link DeckMetrics} の遷移毎の非同期トレース区間の名前です。
+	 */
+	private static final String[] TRANSITION_SECTIONS = {
+		"Deck.transition.next",
+		"Deck.transition.previous",
+		"Deck.transition.first",
+		"Deck.transition.fling"
+	};
+
+	private final Deck mDeck;
+
+	/**
+	 * 欠落したフレームの判定に使用する 1 フレームの時間 (ナノ秒) です。生成時の画面のリフレッシュレートから求めます。
+	 */
+	private final long mFrameIntervalNanos;
+
+	/**
+	 * フレーム毎に呼び出されるクロックを保持します。
+	 */
+	private final ValueAnimator mClock;
+
+	/**
+	 * クロックが開始されているかどうかを保持します。
+	 */
+	private boolean mClockStarted;
+
+	/**
+	 * アニメーション中のデッキカードと、その移動開始/終了座標やバウンド幅を保持します。
+	 */
+	private final DeckAnimationTracks<View> mTracks = new DeckAnimationTracks<View>();
+
+	/**
+	 * 計測中の遷移と、前のフレームのアニメーションのフレーム時刻 (ミリ秒)、描画されたフレームの数と欠落したフレームの数を保持します。
+	 */
+	private int mTransition = NO_TRANSITION;
+	private long mLastFrameTime;
+	private int mTransitionFrames;
+	private int mTransitionDroppedFrames;
+
+	/**
+	 * 遷移の非同期トレース区間を区別する識別子を保持します。
+	 */
+	private int mTransitionCookie;
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param deck デッキ
+	 */
+	DeckAnimationDriver(final Deck deck) {
+		mDeck = deck;
+		mFrameIntervalNanos = (long) (1000000000L / getRefreshRate(deck.getContext()));
+		mClock = ValueAnimator.ofFloat(0F, 1F);
+		mClock.setDuration(CLOCK_DURATION);
+		mClock.setRepeatCount(ValueAnimator.INFINITE);
+		mClock.setInterpolator(new LinearInterpolator());
+		mClock.addUpdateListener(this);
+	}
+
+	/**
+	 * スライドアニメーションを開始します。
+	 * {@code bounce} が {@code 0} でない場合は、スライドアニメーションの後にバウンドアニメーションも行います。<p>
+	 * 指定されたデッキカードが既にアニメーション中の場合は、そのアニメーションを置き換えます。
+	 * 
+	 * @param card アニメーションさせるビュー
+	 * @param startX 開始 X 座標
+	 * @param endX 終了 X 座標
+	 * @param duration 移動アニメーションの時間 (ミリ秒)
+	 * @param bounce バウンド幅 (ピクセル)
+	 * @param bounceDuration バウンドアニメーションの時間 (ミリ秒)
+	 * @param hideUnderCards アニメーション終了時に下に隠れるカードを非表示にするかどうか
+	 */
+	void move(final View card, final float startX, final float endX, final int duration, final int bounce, final int bounceDuration, final boolean hideUnderCards) {
+		final int i = add(card, startX, endX, duration, hideUnderCards);
+		mTracks.setBounce(i, bounce, bounceDuration);
+	}
+
+	/**
+	 * 指定された初速から終了座標へバネで落ち着かせるアニメーションを開始します。<p>
+	 * 指定されたデッキカードが既にアニメーション中の場合は、そのアニメーションを置き換えます。
+	 * 
+	 * @param card アニメーションさせるビュー
+	 * @param startX 開始 X 座標
+	 * @param endX 終了 X 座標
+	 * @param velocity 初速 (ピクセル/秒)
+	 * @param hideUnderCards アニメーション終了時に下に隠れるカードを非表示にするかどうか
+	 * @see DeckFlingPhysics
+	 */
+	void spring(final View card, final float startX, final float endX, final float velocity, final boolean hideUnderCards) {
+		final int i = add(card, startX, endX, DeckFlingPhysics.settleDuration(startX - endX, velocity), hideUnderCards);
+		mTracks.setSpring(i, velocity);
+	}
+
+	private int add(final View card, final float startX, final float endX, final int duration, final boolean hideUnderCards) {
+		final int i = mTracks.add(card, AnimationUtils.currentAnimationTimeMillis(), startX, endX, duration, hideUnderCards);
+		card.setX(startX);
+
+		if (!mClockStarted) {
+			mClockStarted = true;
+			mClock.start();
+		}
+		return i;
+	}
+
+	/**
+	 * 指定された遅延時間の後にバウンドアニメーションを開始します。<p>
+	 * 指定されたデッキカードがスライドアニメーション中の場合は、スライドアニメーションの終了後にバウンドさせます。
+	 * 
+	 * @param card アニメーションさせるビュー
+	 * @param delay アニメーション遅延開始時間 (ミリ秒)
+	 * @param bounce バウンド幅 (ピクセル)
+	 * @param bounceDuration バウンドアニメーションの時間 (ミリ秒)
+	 */
+	void bounce(final View card, final int delay, final int bounce, final int bounceDuration) {
+		final DeckAnimationTracks<View> tracks = mTracks;
+		final int i = tracks.indexOf(card);
+		if (i != DeckAnimationTracks.NOT_FOUND && tracks.canBounce(i)) {
+			tracks.setBounce(i, bounce, bounceDuration);
+			return;
+		}
+		final boolean found = i != DeckAnimationTracks.NOT_FOUND;
+		final float x = found ? tracks.getEndX(i) : card.getX();
+		move(card, x, x, delay, bounce, bounceDuration, found && tracks.isHideUnderCards(i));
+	}
+
+	/**
+	 * 開始されたアニメーションを指定された遷移として計測し、終了までを非同期トレース区間として出力します。<p>
+	 * {@link Deck#getMetrics()} も {@link DeckTrace} のトレーサーも設定されていない場合、またはアニメーション中のデッキカードがない場合は何も行いません。
+	 * 前の遷移が終了していない場合は、前の遷移を終了させてから計測を開始します。
+	 * 
+	 * @param transition {@link DeckMetrics} の遷移
+	 */
+	void beginTransition(final int transition) {
+		final DeckMetrics metrics = mDeck.getMetrics();
+		if (mTracks.size() == 0 || metrics == null && !DeckTrace.isEnabled()) {
+			return;
+		}
+		endTransition(metrics);
+		mTransition = transition;
+		DeckTrace.beginAsyncSection(TRANSITION_SECTIONS[transition], ++mTransitionCookie);
+		mLastFrameTime = AnimationUtils.currentAnimationTimeMillis();
+		mTransitionFrames = 0;
+		mTransitionDroppedFrames = 0;
+	}
+
+	private void endTransition(final DeckMetrics metrics) {
+		if (mTransition != NO_TRANSITION) {
+			if (metrics != null) {
+				metrics.onTransitionEnd(mTransition, mTransitionFrames, mTransitionDroppedFrames);
+			}
+			DeckTrace.endAsyncSection(TRANSITION_SECTIONS[mTransition], mTransitionCookie);
+			mTransition = NO_TRANSITION;
+		}
+	}
+
+	/**
+	 * フレームの計測値を通知します。<p>
+	 * フレームの間隔はコールバックの呼び出し時刻ではなくアニメーションのフレーム時刻から求めるため、
+	 * コールバックの呼び出しの揺らぎは欠落したフレームとして数えません。
+	 * 
+	 * @param frameTime アニメーションのフレーム時刻 (ミリ秒)
+	 */
+	private void recordFrame(final DeckMetrics metrics, final long frameTime) {
+		metrics.onRunningAnimators(mTracks.size());
+		if (mTransition != NO_TRANSITION) {
+			final long interval = (frameTime - mLastFrameTime) * 1000000L;
+			final long frameInterval = mFrameIntervalNanos;
+			final int dropped = (int) Math.max((interval + frameInterval / 2) / frameInterval - 1, 0L);
+			mLastFrameTime = frameTime;
+			mTransitionFrames++;
+			mTransitionDroppedFrames += dropped;
+			metrics.onTransitionFrame(mTransition, interval, dropped);
+		}
+	}
+
+	/**
+	 * 指定されたコンテキストの画面のリフレッシュレート (Hz) を返します。
+	 */
+	private static float getRefreshRate(final Context context) {
+		final WindowManager wm = context == null ? null : (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+		final Display display = wm == null ? null : wm.getDefaultDisplay();
+		final float rate = display == null ? 0F : display.getRefreshRate();
+		// 一部の端末やレイアウトエディタでは不正な値が返されるため、既定値を使用します。
+		return rate >= 10F ? rate : DEFAULT_REFRESH_RATE;
+	}
+
+	/**
+	 * すべてのアニメーションを終了させ、デッキカードを終了座標へ移動します。
+	 */
+	void end() {
+		stopClock();
+		endTransition(mDeck.getMetrics());
+		if (mTracks.finish(this)) {
+			mDeck.hideUnderCards();
+		}
+		mDeck.onAnimationSettled();
+	}
+
+	/**
+	 * すべてのアニメーションを、デッキカードを終了座標へ移動させずにその場で止めます。
+	 */
+	void stop() {
+		stopClock();
+		mTracks.clear();
+		endTransition(mDeck.getMetrics());
+	}
+
+	/**
+	 * 指定されたデッキカードのアニメーションを、終了座標へ移動させずに取り消します。
+	 * 
+	 * @param card デッキカード
+	 */
+	void cancel(final View card) {
+		final DeckAnimationTracks<View> tracks = mTracks;
+		final int i = tracks.indexOf(card);
+		if (i == DeckAnimationTracks.NOT_FOUND) {
+			return;
+		}
+		tracks.remove(i);
+		if (tracks.size() == 0) {
+			stopClock();
+			endTransition(mDeck.getMetrics());
+		}
+	}
+
+	/**
+	 * アニメーション中のデッキカードの数を返します。
+	 * 
+	 * @return アニメーション中のデッキカードの数
+	 */
+	int getRunningCount() {
+		return mTracks.size();
+	}
+
+	@Override
+	public void onAnimationUpdate(final ValueAnimator animation) {
+		final long now = AnimationUtils.currentAnimationTimeMillis();
+		final DeckMetrics metrics = mDeck.getMetrics();
+		if (metrics != null) {
+			recordFrame(metrics, now);
+		}
+		final DeckAnimationTracks<View> tracks = mTracks;
+		if (tracks.update(now, this)) {
+			mDeck.hideUnderCards();
+		}
+		if (tracks.size() == 0) {
+			stopClock();
+			endTransition(metrics);
+			mDeck.onAnimationSettled();
+		}
+	}
+
+	private void stopClock() {
+		if (mClockStarted) {
+			mClockStarted = false;
+			mClock.cancel();
+		}
+	}
+
+	@Override
+	public void setX(final View card, final float x) {
+		card.setX(x);
+	}
+
+}
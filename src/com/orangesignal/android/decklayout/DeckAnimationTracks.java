@@ -0,0 +1,315 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * {@link DeckAnimationDriver} がアニメーション中のデッキカード毎に保持する移動開始/終了座標やバウンド幅と、
+ * フレーム毎の座標の算出を提供します。<p>
+ * ビューへの依存を持たないため、デッキカードの型と座標の反映先は呼び出し側が与えます。
+ * 配列は容量が不足した場合のみ拡張されるため、定常状態のフレームではメモリを割り当てません。
+ *
+ * @param <T> デッキカードの型
+ * @author Koji Sugisawa
+ */
+final class DeckAnimationTracks<T> {
+
+	/**
+	 * 算出した座標をデッキカードへ反映するインタフェースです。
+	 *
+	 * @param <T> デッキカードの型
+	 */
+	interface Target<T> {
+
+		/**
+		 * 指定されたデッキカードの X 座標を設定します。
+		 *
+		 * @param card デッキカード
+		 * @param x X 座標
+		 */
+		void setX(T card, float x);
+
+	}
+
+	/**
+	 * 見つからない場合の位置です。
+	 */
+	static final int NOT_FOUND = -1;
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private int mCount;
+	private Object[] mCards = new Object[INITIAL_CAPACITY];
+	private long[] mStartTimes = new long[INITIAL_CAPACITY];
+	private float[] mStartX = new float[INITIAL_CAPACITY];
+	private float[] mEndX = new float[INITIAL_CAPACITY];
+	private int[] mDurations = new int[INITIAL_CAPACITY];
+	private int[] mBounces = new int[INITIAL_CAPACITY];
+	private int[] mBounceDurations = new int[INITIAL_CAPACITY];
+	private boolean[] mHideUnderCards = new boolean[INITIAL_CAPACITY];
+
+	/**
+	 * バネで移動するかどうかと、その初速 (ピクセル/秒) を保持します。
+	 */
+	private boolean[] mSprings = new boolean[INITIAL_CAPACITY];
+	private float[] mVelocities = new float[INITIAL_CAPACITY];
+
+	/**
+	 * 指定されたデッキカードの線形な移動を追加します。<p>
+	 * 指定されたデッキカードが既にアニメーション中の場合は、そのアニメーションを置き換えます。
+	 *
+	 * @param card デッキカード
+	 * @param startTime 開始時刻 (ミリ秒)
+	 * @param startX 開始 X 座標
+	 * @param endX 終了 X 座標
+	 * @param duration 移動アニメーションの時間 (ミリ秒)
+	 * @param hideUnderCards アニメーション終了時に下に隠れるカードを非表示にするかどうか
+	 * @return 位置
+	 */
+	int add(final T card, final long startTime, final float startX, final float endX, final int duration, final boolean hideUnderCards) {
+		int i = indexOf(card);
+		if (i == NOT_FOUND) {
+			if (mCount == mCards.length) {
+				grow();
+			}
+			i = mCount++;
+			mCards[i] = card;
+		}
+		mStartTimes[i] = startTime;
+		mStartX[i] = startX;
+		mEndX[i] = endX;
+		mDurations[i] = duration;
+		mBounces[i] = 0;
+		mBounceDurations[i] = 0;
+		mHideUnderCards[i] = hideUnderCards;
+		mSprings[i] = false;
+		mVelocities[i] = 0F;
+		return i;
+	}
+
+	/**
+	 * 指定された位置の移動の後にバウンドさせます。
+	 *
+	 * @param i 位置
+	 * @param bounce バウンド幅 (ピクセル)
+	 * @param bounceDuration バウンドアニメーションの時間 (ミリ秒)
+	 */
+	void setBounce(final int i, final int bounce, final int bounceDuration) {
+		mBounces[i] = bounce;
+		mBounceDurations[i] = bounceDuration;
+	}
+
+	/**
+	 * 指定された位置の移動を、指定された初速から終了座標へバネで落ち着かせる移動にします。
+	 *
+	 * @param i 位置
+	 * @param velocity 初速 (ピクセル/秒)
+	 * @see DeckFlingPhysics
+	 */
+	void setSpring(final int i, final float velocity) {
+		mSprings[i] = true;
+		mVelocities[i] = velocity;
+	}
+
+	int size() { return mCount; }
+	int capacity() { return mCards.length; }
+	float getEndX(final int i) { return mEndX[i]; }
+	boolean isHideUnderCards(final int i) { return mHideUnderCards[i]; }
+
+	@SuppressWarnings("unchecked")
+	T get(final int i) {
+		return (T) mCards[i];
+	}
+
+	/**
+	 * 指定された位置にバウンドを後から追加できるかどうかを返します。
+	 *
+	 * @param i 位置
+	 * @return バウンドもバネも設定されていない場合は {@code true}
+	 */
+	boolean canBounce(final int i) {
+		return mBounces[i] == 0 && !mSprings[i];
+	}
+
+	/**
+	 * 指定されたデッキカードの位置を返します。
+	 *
+	 * @param card デッキカード
+	 * @return 位置。または {@link #NOT_FOUND}
+	 */
+	int indexOf(final T card) {
+		for (int i = 0; i < mCount; i++) {
+			if (mCards[i] == card) {
+				return i;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * 指定された時刻のすべてのデッキカードの座標を算出して反映し、終了したデッキカードを取り除きます。
+	 *
+	 * @param now 現在時刻 (ミリ秒)
+	 * @param target 座標の反映先
+	 * @return 取り除いたデッキカードに下に隠れるカードを非表示にするものがあった場合は {@code true}
+	 */
+	boolean update(final long now, final Target<? super T> target) {
+		boolean hideUnderCards = false;
+		int n = 0;
+		for (int i = 0; i < mCount; i++) {
+			final long elapsed = now - mStartTimes[i];
+			target.setX(get(i), computeX(i, elapsed));
+			if (elapsed >= mDurations[i] + (mBounces[i] != 0 ? mBounceDurations[i] * 2 : 0)) {
+				// 終了したデッキカードは取り除きます。
+				hideUnderCards |= mHideUnderCards[i];
+				continue;
+			}
+			if (n != i) {
+				move(i, n);
+			}
+			n++;
+		}
+		truncate(n);
+		return hideUnderCards;
+	}
+
+	/**
+	 * すべてのデッキカードを終了座標へ移動させて取り除きます。
+	 *
+	 * @param target 座標の反映先
+	 * @return 下に隠れるカードを非表示にするデッキカードがあった場合は {@code true}
+	 */
+	boolean finish(final Target<? super T> target) {
+		boolean hideUnderCards = false;
+		for (int i = 0; i < mCount; i++) {
+			target.setX(get(i), mEndX[i]);
+			hideUnderCards |= mHideUnderCards[i];
+		}
+		truncate(0);
+		return hideUnderCards;
+	}
+
+	/**
+	 * 指定された位置のデッキカードを取り除きます。
+	 *
+	 * @param i 位置
+	 */
+	void remove(final int i) {
+		for (int j = i + 1; j < mCount; j++) {
+			move(j, j - 1);
+		}
+		truncate(mCount - 1);
+	}
+
+	/**
+	 * すべてのデッキカードを取り除きます。
+	 */
+	void clear() {
+		truncate(0);
+	}
+
+	private void truncate(final int count) {
+		for (int i = count; i < mCount; i++) {
+			mCards[i] = null;
+		}
+		mCount = count;
+	}
+
+	/**
+	 * 指定された経過時間におけるデッキカードの X 座標を算出して返します。<p>
+	 * 移動は線形補間で行い、バウンドは減速補間で往復させます。バネの場合は {@link DeckFlingPhysics} に従います。
+	 */
+	private float computeX(final int i, final long elapsed) {
+		final int duration = mDurations[i];
+		if (mSprings[i]) {
+			if (elapsed >= duration) {
+				return mEndX[i];
+			}
+			return mEndX[i] + DeckFlingPhysics.springOffset(mStartX[i] - mEndX[i], mVelocities[i], elapsed);
+		}
+		if (elapsed < duration) {
+			return mStartX[i] + (mEndX[i] - mStartX[i]) * elapsed / duration;
+		}
+		final int bounce = mBounces[i];
+		final int bounceDuration = mBounceDurations[i];
+		final long t = elapsed - duration;
+		if (bounce == 0 || bounceDuration <= 0 || t >= bounceDuration * 2) {
+			return mEndX[i];
+		}
+		float fraction = (float) t / bounceDuration;
+		if (fraction > 1F) {
+			fraction = 2F - fraction;	// 折り返し
+		}
+		return mEndX[i] + bounce * decelerate(fraction);
+	}
+
+	/**
+	 * {@link android.view.animation.DecelerateInterpolator} と同じ補間を行います。
+	 */
+	private static float decelerate(final float input) {
+		return 1F - (1F - input) * (1F - input);
+	}
+
+	private void move(final int from, final int to) {
+		mCards[to] = mCards[from];
+		mStartTimes[to] = mStartTimes[from];
+		mStartX[to] = mStartX[from];
+		mEndX[to] = mEndX[from];
+		mDurations[to] = mDurations[from];
+		mBounces[to] = mBounces[from];
+		mBounceDurations[to] = mBounceDurations[from];
+		mHideUnderCards[to] = mHideUnderCards[from];
+		mSprings[to] = mSprings[from];
+		mVelocities[to] = mVelocities[from];
+	}
+
+	private void grow() {
+		final int capacity = mCards.length * 2;
+		final Object[] cards = new Object[capacity];
+		System.arraycopy(mCards, 0, cards, 0, mCount);
+		mCards = cards;
+		final long[] startTimes = new long[capacity];
+		System.arraycopy(mStartTimes, 0, startTimes, 0, mCount);
+		mStartTimes = startTimes;
+		mStartX = copyOf(mStartX, capacity);
+		mEndX = copyOf(mEndX, capacity);
+		mDurations = copyOf(mDurations, capacity);
+		mBounces = copyOf(mBounces, capacity);
+		mBounceDurations = copyOf(mBounceDurations, capacity);
+		final boolean[] hideUnderCards = new boolean[capacity];
+		System.arraycopy(mHideUnderCards, 0, hideUnderCards, 0, mCount);
+		mHideUnderCards = hideUnderCards;
+		final boolean[] springs = new boolean[capacity];
+		System.arraycopy(mSprings, 0, springs, 0, mCount);
+		mSprings = springs;
+		mVelocities = copyOf(mVelocities, capacity);
+	}
+
+	private static int[] copyOf(final int[] src, final int capacity) {
+		final int[] dst = new int[capacity];
+		System.arraycopy(src, 0, dst, 0, src.length);
+		return dst;
+	}
+
+	private static float[] copyOf(final float[] src, final int capacity) {
+		final float[] dst = new float[capacity];
+		System.arraycopy(src, 0, dst, 0, src.length);
+		return dst;
+	}
+
+}
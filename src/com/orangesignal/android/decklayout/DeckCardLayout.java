@@ -32,6 +32,33 @@ import android.widget.FrameLayout;
  */
 public class DeckCardLayout extends FrameLayout {
 
+	/**
+	 * デッキカードの移動中にハードウェアレイヤーへの昇格を許可するかどうかを保持します。
+	 */
+	private boolean mHardwareLayerAllowed = true;
+
+	/**
+	 * 上のデッキカードに覆われて描画対象から除外されているかどうかを保持します。
+	 */
+	private boolean mCulled;
+
+	/**
+	 * 描画時に切り抜く水平方向の範囲を保持します。
+	 */
+	private float mOverdrawClipLeft;
+	private float mOverdrawClipRight;
+
+	/**
+	 * {@link Deck} が最後にこのデッキカードを計測した時点の計測世代を保持します。
+	 */
+	private int mMeasureGeneration = -1;
+
+	/**
+	 * {@link DeckAdapter} から生成された場合の位置と種類を保持します。
+	 */
+	private int mAdapterPosition = -1;
+	private int mCardType = -1;
+
 	/**
 	 * コンストラクタです。
 	 * 
@@ -62,6 +89,27 @@ public class DeckCardLayout extends FrameLayout {
 		super(context, attrs, defStyle);
 	}
 
+	/**
+	 * デッキカードの移動中にハードウェアレイヤーへの昇格を許可するかどうかを設定します。
+	 * 
+	 * @param allowed 許可する場合は {@code true}
+	 * @see Deck#setHardwareLayersEnabled(boolean)
+	 */
+	public void setHardwareLayerAllowed(final boolean allowed) {
+		mHardwareLayerAllowed = allowed;
+	}
+
+	/**
+	 * デッキカードの移動中にハードウェアレイヤーへの昇格を許可するかどうかを返します。<p>
+	 * 内容自体がアニメーションするデッキカードは、レイヤーの再描画が毎フレーム発生して逆効果となるため、
+	 * {@link #setHardwareLayerAllowed(boolean)} で {@code false} を設定するか、このメソッドをオーバーライドしてアニメーション中は {@code false} を返すべきです。
+	 * 
+	 * @return 許可する場合は {@code true}
+	 */
+	public boolean isHardwareLayerAllowed() {
+		return mHardwareLayerAllowed;
+	}
+
 	/**
 	 * この実装は常に {@code true} を返します。
 	 */
@@ -72,4 +120,46 @@ public class DeckCardLayout extends FrameLayout {
 		return (touchX >= (x + getPaddingLeft()) && touchX <= (x + getWidth() - getPaddingRight()));
 	}
 
+	/**
+	 * 上のデッキカードに覆われて描画対象から除外されているかどうかを設定します。
+	 * 
+	 * @param culled 描画対象から除外する場合は {@code true}
+	 */
+	void setCulled(final boolean culled) {
+		mCulled = culled;
+	}
+
+	/**
+	 * 上のデッキカードに覆われて描画対象から除外されているかどうかを返します。
+	 * 
+	 * @return 描画対象から除外されている場合は {@code true}
+	 */
+	boolean isCulled() {
+		return mCulled;
+	}
+
+	/**
+	 * 描画時に切り抜く水平方向の範囲を {@link Deck} の座標で設定します。<p>
+	 * 左座標が右座標以上の場合は切り抜きません。
+	 * 
+	 * @param left 左座標
+	 * @param right 右座標
+	 */
+	void setOverdrawClip(final float left, final float right) {
+		mOverdrawClipLeft = left;
+		mOverdrawClipRight = right;
+	}
+
+	boolean hasOverdrawClip() { return mOverdrawClipLeft < mOverdrawClipRight; }
+	float getOverdrawClipLeft() { return mOverdrawClipLeft; }
+	float getOverdrawClipRight() { return mOverdrawClipRight; }
+
+	int getMeasureGeneration() { return mMeasureGeneration; }
+	void setMeasureGeneration(final int generation) { mMeasureGeneration = generation; }
+
+	int getAdapterPosition() { return mAdapterPosition; }
+	void setAdapterPosition(final int position) { mAdapterPosition = position; }
+	int getCardType() { return mCardType; }
+	void setCardType(final int type) { mCardType = type; }
+
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.util.ArrayList;
+
+/**
+ * {@link DeckAdapter} から生成されたデッキカードをデッキカードの種類ごとに保持して再利用します。<p>
+ * 種類ごとに保持するデッキカードの数には上限があり、上限を超えたデッキカードは破棄されます。
+ *
+ * @author Koji Sugisawa
+ */
+final class DeckCardRecycler {
+
+	/**
+	 * デッキカードの種類ごとに保持するデッキカードの最大数です。
+	 */
+	static final int MAX_SCRAP = 4;
+
+	private final ArrayList<ArrayList<DeckCardLayout>> mScraps = new ArrayList<ArrayList<DeckCardLayout>>();
+
+	/**
+	 * デッキカードの種類の数を設定します。保持しているデッキカードは破棄されます。
+	 *
+	 * @param count デッキカードの種類の数
+	 */
+	void setCardTypeCount(final int count) {
+		mScraps.clear();
+		for (int i = 0; i < count; i++) {
+			mScraps.add(new ArrayList<DeckCardLayout>(MAX_SCRAP));
+		}
+	}
+
+	/**
+	 * 指定されたデッキカードを再利用のために保持します。
+	 *
+	 * @param card デッキカード
+	 */
+	void put(final DeckCardLayout card) {
+		final int type = card.getCardType();
+		if (type < 0 || type >= mScraps.size()) {
+			return;
+		}
+		final ArrayList<DeckCardLayout> scrap = mScraps.get(type);
+		if (scrap.size() < MAX_SCRAP) {
+			scrap.add(card);
+		}
+	}
+
+	/**
+	 * 指定された種類の再利用可能なデッキカードを取り出して返します。
+	 *
+	 * @param type デッキカードの種類
+	 * @return 再利用可能なデッキカード。または {@code null}
+	 */
+	DeckCardLayout get(final int type) {
+		if (type < 0 || type >= mScraps.size()) {
+			return null;
+		}
+		final ArrayList<DeckCardLayout> scrap = mScraps.get(type);
+		final int size = scrap.size();
+		return size == 0 ? null : scrap.remove(size - 1);
+	}
+
+	/**
+	 * 保持しているすべてのデッキカードを破棄します。
+	 */
+	void clear() {
+		for (int i = mScraps.size() - 1; i >= 0; i--) {
+			mScraps.get(i).clear();
+		}
+	}
+
+}
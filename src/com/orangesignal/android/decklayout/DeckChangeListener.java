@@ -0,0 +1,37 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * 変更内容を受け取る {@link Deck} のリスナーを提供します。<p>
+ * このインタフェースを実装するフラグメントへは {@link DeckListener#onDeckChanged()} の代わりに
+ * {@link #onDeckChanged(DeckChangeSet)} で通知します。
+ * 
+ * @author Koji Sugisawa
+ */
+public interface DeckChangeListener {
+
+	/**
+	 * 状態が変更された場合に呼び出されます。
+	 * 
+	 * @param changes 変更内容
+	 */
+	void onDeckChanged(DeckChangeSet changes);
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.util.Arrays;
+
+import android.app.Fragment;
+
+/**
+ * {@link DeckChangeListener} へ通知されるデッキの変更内容を提供します。<p>
+ * 前回の状態変更通知以降に {@link DeckManager} で関連付けられた位置と切り離された位置、
+ * 変更の起因となるフラグメント、アプリケーションが定義するペイロードのキーを保持します。
+ * 位置は操作が行われた時点のデッキにおける位置であり、現在のデッキにおける位置ではありません。<p>
+ * 複数の状態変更通知がまとめられた場合、位置はすべての通知の和となり、起因となるフラグメントやペイロードのキーが通知ごとに異なる場合は {@code null} となります。
+ * まとめられた変更内容は関連付けと切り離しの前後関係を保持しないため、位置から通知時点のデッキの状態を再現することはできません。
+ * 位置を用いて差分を適用する場合は {@link DeckManager#DISPATCH_SYNC} で通知を受け取ってください。
+ * 
+ * @author Koji Sugisawa
+ */
+public final class DeckChangeSet {
+
+	private static final int[] EMPTY = new int[0];
+
+	private final Fragment mSource;
+	private final int[] mAdded;
+	private final int[] mRemoved;
+	private final Object mPayload;
+
+	DeckChangeSet(final Fragment source, final int[] added, final int[] removed, final Object payload) {
+		mSource = source;
+		mAdded = added;
+		mRemoved = removed;
+		mPayload = payload;
+	}
+
+	/**
+	 * 変更の起因となるフラグメントを返します。
+	 * 
+	 * @return 変更の起因となるフラグメント。または {@code null}
+	 */
+	public Fragment getSource() {
+		return mSource;
+	}
+
+	/**
+	 * 関連付けられたフラグメントの位置を、関連付けられた順に返します。
+	 * 
+	 * @return 関連付けられたフラグメントの位置
+	 */
+	public int[] getAddedPositions() {
+		return mAdded.clone();
+	}
+
+	/**
+	 * 切り離されたフラグメントの位置を、切り離された順に返します。
+	 * 
+	 * @return 切り離されたフラグメントの位置
+	 */
+	public int[] getRemovedPositions() {
+		return mRemoved.clone();
+	}
+
+	/**
+	 * アプリケーションが定義するペイロードのキーを返します。
+	 * 
+	 * @return ペイロードのキー。または {@code null}
+	 * @see DeckManager#notifyDeckChanged(Fragment, Object)
+	 */
+	public Object getPayload() {
+		return mPayload;
+	}
+
+	/**
+	 * 位置の変更を含むかどうかを返します。
+	 * 
+	 * @return 位置の変更を含む場合は {@code true}
+	 */
+	public boolean hasStructuralChanges() {
+		return mAdded.length > 0 || mRemoved.length > 0;
+	}
+
+	/**
+	 * この変更内容と指定された変更内容をまとめた変更内容を返します。<p>
+	 * 関連付けられた位置と切り離された位置はそれぞれ連結されるため、両者の前後関係は失われます。
+	 * 
+	 * @param other 後に発生した変更内容
+	 * @return まとめた変更内容
+	 */
+	DeckChangeSet merge(final DeckChangeSet other) {
+		return new DeckChangeSet(
+				mSource == other.mSource ? mSource : null,
+				concat(mAdded, other.mAdded),
+				concat(mRemoved, other.mRemoved),
+				mPayload == null ? null : mPayload.equals(other.mPayload) ? mPayload : null
+			);
+	}
+
+	private static int[] concat(final int[] a, final int[] b) {
+		if (b.length == 0) {
+			return a;
+		}
+		if (a.length == 0) {
+			return b;
+		}
+		final int[] result = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "DeckChangeSet{added=" + Arrays.toString(mAdded) + ", removed=" + Arrays.toString(mRemoved) + ", payload=" + mPayload + "}";
+	}
+
+	/**
+	 * 関連付けられた位置と切り離された位置を記録して {@link DeckChangeSet} を生成します。
+	 */
+	static final class Builder {
+
+		private int[] mAdded = new int[4];
+		private int mAddedCount;
+		private int[] mRemoved = new int[4];
+		private int mRemovedCount;
+
+		void added(final int position) {
+			if (mAddedCount == mAdded.length) {
+				mAdded = Arrays.copyOf(mAdded, mAddedCount * 2);
+			}
+			mAdded[mAddedCount++] = position;
+		}
+
+		void removed(final int position) {
+			if (mRemovedCount == mRemoved.length) {
+				mRemoved = Arrays.copyOf(mRemoved, mRemovedCount * 2);
+			}
+			mRemoved[mRemovedCount++] = position;
+		}
+
+		/**
+		 * 記録を消去します。
+		 */
+		void clear() {
+			mAddedCount = 0;
+			mRemovedCount = 0;
+		}
+
+		/**
+		 * 記録した位置から {@link DeckChangeSet} を生成し、記録を消去します。
+		 */
+		DeckChangeSet build(final Fragment source, final Object payload) {
+			final DeckChangeSet changes = new DeckChangeSet(
+					source,
+					mAddedCount == 0 ? EMPTY : Arrays.copyOf(mAdded, mAddedCount),
+					mRemovedCount == 0 ? EMPTY : Arrays.copyOf(mRemoved, mRemovedCount),
+					payload
+				);
+			clear();
+			return changes;
+		}
+
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * {@link Deck} のドラッグ中に、直近のタッチ座標から少し先の指の座標を予測する機能を提供します。<p>
+ * 直近の一定時間内のタッチ座標に最小二乗法で直線を当てはめて指の速度を求め、最新の座標から予測時間だけ線形に外挿します。
+ * 外挿する距離は上限で制限され、指が止まっている (直近のタッチ座標が古い) 場合は最新の座標をそのまま返します。
+ * このクラスはビューに依存しないため、記録したタッチ座標の列を与えて JVM 上で検証できます。
+ * 座標の履歴は生成時に確保した配列で保持し、座標の追加と予測ではメモリの割り当てを行いません。
+ * 時間の単位はミリ秒で、{@link android.view.MotionEvent#getEventTime()} と同じ時間軸を使用します。
+ *
+ * @author Koji Sugisawa
+ * @see Deck#setDragPredictor(DeckDragPredictor)
+ */
+public final class DeckDragPredictor {
+
+	/**
+	 * 保持するタッチ座標の最大数です。
+	 */
+	private static final int HISTORY_SIZE = 8;
+
+	/**
+	 * 速度の推定に使用するタッチ座標の期間 (ミリ秒) です。最新の座標がこれより古い場合は、指が止まっているとみなします。
+	 */
+	private static final long HISTORY_MILLIS = 50L;
+
+	/**
+	 * 予測時間 (ミリ秒) の既定値です。60Hz の画面の 1 フレームに相当します。
+	 */
+	public static final int DEFAULT_PREDICTION_TIME = 16;
+
+	private final long[] mTimes = new long[HISTORY_SIZE];
+	private final float[] mX = new float[HISTORY_SIZE];
+
+	/**
+	 * 最新のタッチ座標の位置と、保持しているタッチ座標の数を保持します。
+	 */
+	private int mLast = -1;
+	private int mCount;
+
+	private final int mPredictionTime;
+	private final float mMaxDistance;
+
+	/**
+	 * コンストラクタです。
+	 *
+	 * @param predictionTime 予測時間 (ミリ秒)。最新のタッチ座標からではなく、予測を求めた時刻からの時間です
+	 * @param maxDistance 外挿する距離の上限 (ピクセル)
+	 */
+	public DeckDragPredictor(final int predictionTime, final float maxDistance) {
+		mPredictionTime = Math.max(predictionTime, 0);
+		mMaxDistance = Math.max(maxDistance, 0F);
+	}
+
+	/**
+	 * 保持しているタッチ座標を消去します。
+	 */
+	public void reset() {
+		mLast = -1;
+		mCount = 0;
+	}
+
+	/**
+	 * タッチ座標を追加します。<p>
+	 * 最新のタッチ座標と同じ時刻の座標は最新のタッチ座標を置き換え、それより古い座標は無視します。
+	 *
+	 * @param time 時刻 (ミリ秒)
+	 * @param x X 座標
+	 */
+	public void addSample(final long time, final float x) {
+		if (mCount > 0) {
+			final long last = mTimes[mLast];
+			if (time < last) {
+				return;
+			}
+			if (time == last) {
+				mX[mLast] = x;
+				return;
+			}
+		}
+		mLast = (mLast + 1) % HISTORY_SIZE;
+		mTimes[mLast] = time;
+		mX[mLast] = x;
+		if (mCount < HISTORY_SIZE) {
+			mCount++;
+		}
+	}
+
+	/**
+	 * 指定された時刻から予測時間だけ後の指の X 座標を予測して返します。
+	 *
+	 * @param now 現在時刻 (ミリ秒)
+	 * @return 予測した X 座標。タッチ座標が追加されていない場合は {@link Float#NaN}
+	 */
+	public float predict(final long now) {
+		if (mCount == 0) {
+			return Float.NaN;
+		}
+		final long lastTime = mTimes[mLast];
+		final float lastX = mX[mLast];
+		if (mCount < 2 || now - lastTime > HISTORY_MILLIS) {
+			return lastX;
+		}
+		final float velocity = getVelocity();
+		final long horizon = now + mPredictionTime - lastTime;
+		if (horizon <= 0L) {
+			return lastX;
+		}
+		final float distance = velocity * horizon;
+		return lastX + Math.max(-mMaxDistance, Math.min(distance, mMaxDistance));
+	}
+
+	/**
+	 * 直近のタッチ座標から推定した指の速度を返します。
+	 *
+	 * @return 速度 (ピクセル/ミリ秒)。推定できない場合は {@code 0}
+	 */
+	public float getVelocity() {
+		if (mCount < 2) {
+			return 0F;
+		}
+		final long lastTime = mTimes[mLast];
+
+		// 最新の時刻を原点とした時刻で平均を求めます。
+		int n = 0;
+		float sumT = 0F;
+		float sumX = 0F;
+		for (int k = 0; k < mCount; k++) {
+			final int i = (mLast - k + HISTORY_SIZE) % HISTORY_SIZE;
+			final long t = mTimes[i] - lastTime;
+			if (-t > HISTORY_MILLIS) {
+				break;
+			}
+			sumT += t;
+			sumX += mX[i];
+			n++;
+		}
+		if (n < 2) {
+			return 0F;
+		}
+		final float meanT = sumT / n;
+		final float meanX = sumX / n;
+
+		float covariance = 0F;
+		float variance = 0F;
+		for (int k = 0; k < n; k++) {
+			final int i = (mLast - k + HISTORY_SIZE) % HISTORY_SIZE;
+			final float dt = mTimes[i] - lastTime - meanT;
+			covariance += dt * (mX[i] - meanX);
+			variance += dt * dt;
+		}
+		return variance == 0F ? 0F : covariance / variance;
+	}
+
+	public int getPredictionTime() { return mPredictionTime; }
+	public float getMaxDistance() { return mMaxDistance; }
+
+}
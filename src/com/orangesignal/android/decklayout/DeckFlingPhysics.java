@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * {@link Deck} の物理モデルにもとづくフリングの計算を行うクラスを提供します。<p>
+ * フリングは指の速度から指数減衰で静止位置を予測し、静止位置に最も近いデッキカードの配置へ
+ * 減衰振動するバネで落ち着かせます。このクラスはビューに依存しない純粋な関数のみを提供します。
+ * 速度の単位はピクセル/秒、時間の単位はミリ秒です。
+ *
+ * @author Koji Sugisawa
+ */
+final class DeckFlingPhysics {
+
+	/**
+	 * 指数減衰の時定数 (秒) です。静止するまでの移動量は速度とこの値の積となります。
+	 */
+	static final float DECAY_TIME_CONSTANT = 0.25F;
+
+	/**
+	 * バネの固有角振動数 (ラジアン/秒) です。
+	 */
+	static final float SPRING_FREQUENCY = 18F;
+
+	/**
+	 * バネの減衰比です。1 未満のためわずかに行き過ぎてから静止し、従来のバウンドアニメーションの代わりとなります。
+	 */
+	static final float SPRING_DAMPING_RATIO = 0.75F;
+
+	/**
+	 * 静止したとみなす振幅 (ピクセル) です。
+	 */
+	static final float REST_THRESHOLD = 0.5F;
+
+	/**
+	 * バネのアニメーションの最大時間 (ミリ秒) です。
+	 */
+	static final int MAX_SETTLE_DURATION = 600;
+
+	private DeckFlingPhysics() {}
+
+	/**
+	 * 指定された速度でフリングされた場合に静止するまでの移動量を予測して返します。
+	 *
+	 * @param velocity 速度 (ピクセル/秒)
+	 * @return 静止するまでの移動量 (ピクセル)。符号は速度と同じ
+	 */
+	static float restDistance(final float velocity) {
+		return velocity * DECAY_TIME_CONSTANT;
+	}
+
+	/**
+	 * バネの終了座標からの変位を算出して返します。
+	 *
+	 * @param offset 開始時の終了座標からの変位 (ピクセル)
+	 * @param velocity 開始時の速度 (ピクセル/秒)
+	 * @param time 経過時間 (ミリ秒)
+	 * @return 終了座標からの変位 (ピクセル)
+	 */
+	static float springOffset(final float offset, final float velocity, final long time) {
+		final float t = time / 1000F;
+		final float decay = SPRING_DAMPING_RATIO * SPRING_FREQUENCY;
+		final float damped = dampedFrequency();
+		final float a = offset;
+		final float b = (velocity + decay * a) / damped;
+		return (float) (Math.exp(-decay * t) * (a * Math.cos(damped * t) + b * Math.sin(damped * t)));
+	}
+
+	/**
+	 * バネが静止するまでの時間を算出して返します。
+	 *
+	 * @param offset 開始時の終了座標からの変位 (ピクセル)
+	 * @param velocity 開始時の速度 (ピクセル/秒)
+	 * @return 静止するまでの時間 (ミリ秒)
+	 */
+	static int settleDuration(final float offset, final float velocity) {
+		final float decay = SPRING_DAMPING_RATIO * SPRING_FREQUENCY;
+		final float amplitude = Math.abs(offset) + Math.abs((velocity + decay * offset) / dampedFrequency());
+		if (amplitude <= REST_THRESHOLD) {
+			return 0;
+		}
+		final int duration = (int) (Math.log(amplitude / REST_THRESHOLD) / decay * 1000);
+		return Math.min(duration, MAX_SETTLE_DURATION);
+	}
+
+	private static float dampedFrequency() {
+		return SPRING_FREQUENCY * (float) Math.sqrt(1F - SPRING_DAMPING_RATIO * SPRING_DAMPING_RATIO);
+	}
+
+}
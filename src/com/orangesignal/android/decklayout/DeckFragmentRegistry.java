@@ -0,0 +1,203 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * {@link DeckManager} のデッキカードのフラグメントを、位置とタグとルートビューで索引付けして保持します。<p>
+ * フラグメントへの依存を持たないため、フラグメントのタグとビューは呼び出し側が与えます。
+ * ルートビューはフラグメントの追加時点ではまだ生成されていないことがあり、またフラグメントが作り直すこともあるため、
+ * 呼び出し側が {@link #setView(int, Object)} で索引付けし直します。
+ * フラグメントの追加と末尾からの除去、タグとビューによる位置の検索はすべて定数時間で行われます。
+ *
+ * @param <T> フラグメントの型
+ * @author Koji Sugisawa
+ */
+final class DeckFragmentRegistry<T> {
+
+	/**
+	 * 見つからない場合の位置です。
+	 */
+	static final int NOT_FOUND = -1;
+
+	private final ArrayList<T> mItems = new ArrayList<T>(0);
+	private final ArrayList<String> mTags = new ArrayList<String>(0);
+	private final ArrayList<Object> mViews = new ArrayList<Object>(0);
+
+	private final HashMap<String, Integer> mTagIndex = new HashMap<String, Integer>();
+	private final IdentityHashMap<Object, Integer> mViewIndex = new IdentityHashMap<Object, Integer>();
+
+	/**
+	 * 保持しているフラグメントの数を返します。
+	 *
+	 * @return フラグメントの数
+	 */
+	int size() {
+		return mItems.size();
+	}
+
+	/**
+	 * 指定された位置のフラグメントを返します。
+	 *
+	 * @param position 位置
+	 * @return フラグメント
+	 */
+	T get(final int position) {
+		return mItems.get(position);
+	}
+
+	/**
+	 * 指定された位置のフラグメントのタグを返します。
+	 *
+	 * @param position 位置
+	 * @return タグ。または {@code null}
+	 */
+	String getTag(final int position) {
+		return mTags.get(position);
+	}
+
+	/**
+	 * 指定されたフラグメントを末尾に追加します。
+	 *
+	 * @param item フラグメント
+	 * @param tag タグ。または {@code null}
+	 */
+	void add(final T item, final String tag) {
+		final int position = mItems.size();
+		mItems.add(item);
+		mTags.add(tag);
+		mViews.add(null);
+		if (tag != null) {
+			mTagIndex.put(tag, position);
+		}
+	}
+
+	/**
+	 * 指定された位置のフラグメントを除去して返します。<p>
+	 * 末尾以外の位置を指定した場合は、後ろのフラグメントの索引を付け直します。
+	 *
+	 * @param position 位置
+	 * @return 除去したフラグメント
+	 */
+	T remove(final int position) {
+		unindex(position);
+		final T item = mItems.remove(position);
+		mTags.remove(position);
+		mViews.remove(position);
+		for (int i = position; i < mItems.size(); i++) {
+			final String tag = mTags.get(i);
+			if (tag != null) {
+				mTagIndex.put(tag, i);
+			}
+			final Object view = mViews.get(i);
+			if (view != null) {
+				mViewIndex.put(view, i);
+			}
+		}
+		return item;
+	}
+
+	private void unindex(final int position) {
+		final String tag = mTags.get(position);
+		if (tag != null) {
+			final Integer indexed = mTagIndex.get(tag);
+			if (indexed != null && indexed.intValue() == position) {
+				mTagIndex.remove(tag);
+			}
+		}
+		final Object view = mViews.get(position);
+		if (view != null) {
+			mViewIndex.remove(view);
+		}
+	}
+
+	/**
+	 * 指定された位置のフラグメントのルートビューを索引付けします。
+	 *
+	 * @param position 位置
+	 * @param view ルートビュー
+	 */
+	void setView(final int position, final Object view) {
+		final Object old = mViews.set(position, view);
+		if (old != null) {
+			mViewIndex.remove(old);
+		}
+		if (view != null) {
+			mViewIndex.put(view, position);
+		}
+	}
+
+	/**
+	 * 指定された位置のフラグメントの索引付けされているルートビューを返します。
+	 *
+	 * @param position 位置
+	 * @return ルートビュー。索引付けされていない場合は {@code null}
+	 */
+	Object getView(final int position) {
+		return mViews.get(position);
+	}
+
+	/**
+	 * 指定されたタグのフラグメントの位置を返します。
+	 *
+	 * @param tag タグ
+	 * @return 位置。または {@link #NOT_FOUND}
+	 */
+	int indexOfTag(final String tag) {
+		final Integer position = mTagIndex.get(tag);
+		return position == null ? NOT_FOUND : position.intValue();
+	}
+
+	/**
+	 * 索引付けされたルートビューのフラグメントの位置を返します。
+	 *
+	 * @param view ルートビュー
+	 * @return 位置。または {@link #NOT_FOUND}
+	 */
+	int indexOfView(final Object view) {
+		final Integer position = mViewIndex.get(view);
+		return position == null ? NOT_FOUND : position.intValue();
+	}
+
+	/**
+	 * 指定された位置より後ろのフラグメントのリストの複製を返します。<p>
+	 * 返されるリストはこのクラスの内容を参照しないため、その後にフラグメントを追加または除去しても影響を受けません。
+	 *
+	 * @param position 位置
+	 * @return 指定された位置より後ろのフラグメントのリスト
+	 */
+	List<T> after(final int position) {
+		return new ArrayList<T>(mItems.subList(Math.min(position + 1, mItems.size()), mItems.size()));
+	}
+
+	/**
+	 * すべてのフラグメントの変更不可能なリストを返します。
+	 *
+	 * @return すべてのフラグメントのリスト
+	 */
+	List<T> all() {
+		return Collections.unmodifiableList(mItems);
+	}
+
+}
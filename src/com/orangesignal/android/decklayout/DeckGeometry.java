@@ -0,0 +1,592 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * {@link Deck} のデッキカードの位置計算を行うクラスを提供します。<p>
+ * このクラスはビューに依存せず、デッキカードの X 座標や幅、パディングをプリミティブ配列で保持して
+ * ドラッグ、フリング、トランジションの移動先座標を算出します。
+ * 算出した移動先座標をビューへ反映するのは {@link Deck} の責務です。
+ *
+ * @author Koji Sugisawa
+ */
+final class DeckGeometry {
+
+	/**
+	 * カードが見つからないことを表す定数です。
+	 */
+	static final int NO_CARD = -1;
+
+	/**
+	 * 移動アニメーションの最大時間 (ミリ秒) です。
+	 */
+	static final int MAX_DURATION = 300;
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private int mMinLeftMost;
+	private int mMaxLeftMost;
+	private int mSpacing;
+	private int mBounce;
+
+	/**
+	 * デッキの幅を保持します。
+	 */
+	private int mWidth;
+
+	/**
+	 * デッキカードの数を保持します。
+	 */
+	private int mCount;
+
+	/**
+	 * デッキカードの子ビューとしての位置を保持します。
+	 */
+	private int[] mChildPositions = new int[INITIAL_CAPACITY];
+
+	private float[] mX = new float[INITIAL_CAPACITY];
+	private int[] mWidths = new int[INITIAL_CAPACITY];
+	private int[] mPaddingLefts = new int[INITIAL_CAPACITY];
+	private int[] mPaddingRights = new int[INITIAL_CAPACITY];
+
+	/**
+	 * 算出した移動先の X 座標を保持します。
+	 */
+	private float[] mTargetX = new float[INITIAL_CAPACITY];
+
+	/**
+	 * 移動アニメーションを行うデッキカードかどうかを保持します。
+	 */
+	private boolean[] mAnimated = new boolean[INITIAL_CAPACITY];
+
+	private int mBounceCard = NO_CARD;
+	private int mBounceDistance;
+
+	/**
+	 * 移動アニメーション終了時に下に隠れるカードを非表示にするデッキカードを保持します。
+	 */
+	private int mHideUnderCard = NO_CARD;
+
+	/**
+	 * 見えているデッキカード群で最も背面のデッキカードのキャッシュを保持します。
+	 */
+	private int mLeftCard = NO_CARD;
+
+	/**
+	 * {@link #mLeftCard} が有効かどうかを保持します。
+	 */
+	private boolean mLeftCardValid;
+
+	//////////////////////////////////////////////////////////////////////////
+	// 設定
+
+	void setLeftMost(final int min, final int max) {
+		mMinLeftMost = min;
+		mMaxLeftMost = max;
+		mLeftCardValid = false;
+	}
+
+	void setSpacing(final int spacing) { mSpacing = spacing; }
+	void setBounce(final int bounce) { mBounce = bounce; }
+	void setWidth(final int width) { mWidth = width; }
+
+	//////////////////////////////////////////////////////////////////////////
+	// デッキカード
+
+	/**
+	 * 保持しているすべてのデッキカードを破棄します。
+	 */
+	void clear() {
+		mCount = 0;
+		mLeftCardValid = false;
+		reset();
+	}
+
+	/**
+	 * デッキカードを最前面に追加します。
+	 *
+	 * @param childPosition 子ビューとしての位置
+	 * @param x X 座標
+	 * @param width 幅
+	 * @param paddingLeft 左パディング
+	 * @param paddingRight 右パディング
+	 */
+	void add(final int childPosition, final float x, final int width, final int paddingLeft, final int paddingRight) {
+		insert(mCount, childPosition, x, width, paddingLeft, paddingRight);
+	}
+
+	/**
+	 * デッキカードを指定された位置に挿入します。
+	 *
+	 * @param card 挿入する位置
+	 * @param childPosition 子ビューとしての位置
+	 * @param x X 座標
+	 * @param width 幅
+	 * @param paddingLeft 左パディング
+	 * @param paddingRight 右パディング
+	 */
+	void insert(final int card, final int childPosition, final float x, final int width, final int paddingLeft, final int paddingRight) {
+		if (mCount == mX.length) {
+			grow();
+		}
+		final int moved = mCount - card;
+		if (moved > 0) {
+			System.arraycopy(mChildPositions, card, mChildPositions, card + 1, moved);
+			System.arraycopy(mX, card, mX, card + 1, moved);
+			System.arraycopy(mWidths, card, mWidths, card + 1, moved);
+			System.arraycopy(mPaddingLefts, card, mPaddingLefts, card + 1, moved);
+			System.arraycopy(mPaddingRights, card, mPaddingRights, card + 1, moved);
+			System.arraycopy(mTargetX, card, mTargetX, card + 1, moved);
+			System.arraycopy(mAnimated, card, mAnimated, card + 1, moved);
+		}
+		mCount++;
+		mChildPositions[card] = childPosition;
+		mX[card] = x;
+		mTargetX[card] = x;
+		mWidths[card] = width;
+		mPaddingLefts[card] = paddingLeft;
+		mPaddingRights[card] = paddingRight;
+		mAnimated[card] = false;
+		mLeftCardValid = false;
+	}
+
+	/**
+	 * 指定された位置のデッキカードを削除します。
+	 *
+	 * @param card 削除する位置
+	 */
+	void remove(final int card) {
+		final int moved = mCount - card - 1;
+		if (moved > 0) {
+			System.arraycopy(mChildPositions, card + 1, mChildPositions, card, moved);
+			System.arraycopy(mX, card + 1, mX, card, moved);
+			System.arraycopy(mWidths, card + 1, mWidths, card, moved);
+			System.arraycopy(mPaddingLefts, card + 1, mPaddingLefts, card, moved);
+			System.arraycopy(mPaddingRights, card + 1, mPaddingRights, card, moved);
+			System.arraycopy(mTargetX, card + 1, mTargetX, card, moved);
+			System.arraycopy(mAnimated, card + 1, mAnimated, card, moved);
+		}
+		mCount--;
+		mLeftCardValid = false;
+	}
+
+	void setChildPosition(final int card, final int childPosition) {
+		mChildPositions[card] = childPosition;
+	}
+
+	void setX(final int card, final float x) {
+		mX[card] = x;
+		mTargetX[card] = x;
+		mLeftCardValid = false;
+	}
+
+	/**
+	 * 指定されたデッキカードの幅とパディングを更新します。
+	 *
+	 * @param card デッキカード
+	 * @param width 幅
+	 * @param paddingLeft 左パディング
+	 * @param paddingRight 右パディング
+	 */
+	void setMetrics(final int card, final int width, final int paddingLeft, final int paddingRight) {
+		mWidths[card] = width;
+		mPaddingLefts[card] = paddingLeft;
+		mPaddingRights[card] = paddingRight;
+		mLeftCardValid = false;
+	}
+
+	private void grow() {
+		final int capacity = mX.length * 2;
+		mChildPositions = copyOf(mChildPositions, capacity);
+		mX = copyOf(mX, capacity);
+		mWidths = copyOf(mWidths, capacity);
+		mPaddingLefts = copyOf(mPaddingLefts, capacity);
+		mPaddingRights = copyOf(mPaddingRights, capacity);
+		mTargetX = copyOf(mTargetX, capacity);
+		final boolean[] animated = new boolean[capacity];
+		System.arraycopy(mAnimated, 0, animated, 0, mCount);
+		mAnimated = animated;
+	}
+
+	private static int[] copyOf(final int[] src, final int capacity) {
+		final int[] dst = new int[capacity];
+		System.arraycopy(src, 0, dst, 0, src.length);
+		return dst;
+	}
+
+	private static float[] copyOf(final float[] src, final int capacity) {
+		final float[] dst = new float[capacity];
+		System.arraycopy(src, 0, dst, 0, src.length);
+		return dst;
+	}
+
+	int size() { return mCount; }
+	int getChildPosition(final int card) { return mChildPositions[card]; }
+	float getX(final int card) { return mX[card]; }
+	float getTargetX(final int card) { return mTargetX[card]; }
+	boolean isMoved(final int card) { return mTargetX[card] != mX[card]; }
+	boolean isAnimated(final int card) { return mAnimated[card]; }
+	int getBounceCard() { return mBounceCard; }
+	int getBounceDistance() { return mBounceDistance; }
+	int getHideUnderCard() { return mHideUnderCard; }
+
+	float getCardLeft(final int card) {
+		return mX[card] + mPaddingLefts[card];
+	}
+
+	float getCardRight(final int card) {
+		return mX[card] + mWidths[card] - mPaddingRights[card];
+	}
+
+	private float getTargetLeft(final int card) {
+		return mTargetX[card] + mPaddingLefts[card];
+	}
+
+	private float getTargetRight(final int card) {
+		return mTargetX[card] + mWidths[card] - mPaddingRights[card];
+	}
+
+	/**
+	 * 算出した移動先座標を現在の座標として確定します。
+	 */
+	void commit() {
+		System.arraycopy(mTargetX, 0, mX, 0, mCount);
+		mLeftCardValid = false;
+	}
+
+	/**
+	 * 算出した移動先座標を確定せずに破棄します。
+	 */
+	void discard() {
+		reset();
+	}
+
+	private void reset() {
+		System.arraycopy(mX, 0, mTargetX, 0, mCount);
+		for (int i = 0; i < mCount; i++) {
+			mAnimated[i] = false;
+		}
+		mBounceCard = NO_CARD;
+		mBounceDistance = 0;
+		mHideUnderCard = NO_CARD;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// 検索
+
+	/**
+	 * 見えているデッキカード群で最も背面のデッキカードを返します。<p>
+	 * 算出結果はデッキカードの座標が変更されるまでキャッシュされます。
+	 *
+	 * @return 見えているデッキカード群で最も背面のデッキカード。または {@link #NO_CARD}
+	 */
+	int getLeftCard() {
+		if (!mLeftCardValid) {
+			mLeftCard = findLeftCard();
+			mLeftCardValid = true;
+		}
+		return mLeftCard;
+	}
+
+	private int findLeftCard() {
+		int card = mCount - 1;
+		if (card < 0) {
+			return NO_CARD;
+		}
+		for (int i = card - 1; i >= 0; i--) {
+			card = i;
+			if (getCardLeft(i) == mMinLeftMost) {
+				break;
+			}
+		}
+		return card;
+	}
+
+	/**
+	 * 見えているデッキカード群で最も前面のデッキカードを返します。
+	 *
+	 * @return 見えているデッキカード群で最も前面のデッキカード。または {@link #NO_CARD}
+	 */
+	int getRightCard() {
+		for (int i = mCount - 1; i >= 0; i--) {
+			if (getCardLeft(i) < mWidth && getCardRight(i) > mWidth) {
+				return i;
+			}
+		}
+		return NO_CARD;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// 位置計算
+
+	/**
+	 * ドラッグによる各デッキカードの移動先座標を算出します。
+	 *
+	 * @param deltaX 前回のモーションイベントからの移動量 (正の値は左へのドラッグ)
+	 */
+	void drag(final int deltaX) {
+		reset();
+		int prev = NO_CARD;	// 一つ前に処理したカード
+
+		// 左へドラッグ中の場合
+		if (deltaX > 0) {
+			final float minX = mCount > 1 ? mMinLeftMost : 0F;
+			for (int i = mCount - 1; i >= 0; i--) {
+				// 最前面のカード
+				if (prev == NO_CARD) {
+					// 最前面のカードは minX より左に移動できないようにします。
+					float newX = mX[i] - deltaX;
+					if ((newX + mPaddingLefts[i]) < minX) {
+						newX = minX - mPaddingLefts[i];
+					}
+					mTargetX[i] = newX;
+					prev = i;
+
+				// それ以降のカード(※左にスタックされたカードを除く)
+				} else if (getCardLeft(i) > mMinLeftMost) {
+					// 最前面でないカードは左位置を制限して mMinLeftMost より左に移動できないようにします。
+					final float newX = mX[i] - deltaX;
+					if ((newX + mPaddingLefts[i]) > mMinLeftMost) {
+						mTargetX[i] = newX;
+					} else {
+						mTargetX[i] = mMinLeftMost - mPaddingLefts[i];
+					}
+					prev = i;
+				}
+			}
+		// 右へドラッグ中の場合
+		} else if (deltaX < 0) {
+			for (int i = mCount - 1; i >= 0; i--) {
+				// 最前面のカード
+				if (prev == NO_CARD) {
+					// 最前面のカードは横位置について特に制限しません。
+					mTargetX[i] = mX[i] - deltaX;
+
+				// 上のカードの左端とこのカードの右端が mSpacing 分以上に離れる場合は mSpacing の間隔を空けて隣接するようにします。
+				} else if (getTargetLeft(prev) > (getTargetRight(i) + mSpacing)) {
+					mTargetX[i] = getTargetLeft(prev) - mWidths[i] + mPaddingRights[i] - mSpacing;
+				}
+				prev = i;
+			}
+		}
+	}
+
+	/**
+	 * 全体的に左へスライドさせて最後のデッキカードを完全に表示させる移動先座標を算出します。
+	 */
+	void next() {
+		reset();
+		if (mCount == 1) {
+			mTargetX[0] = mMaxLeftMost - mPaddingLefts[0];
+			mAnimated[0] = true;
+			return;
+		}
+
+		final int last = mCount - 1;
+		float baseX = mMinLeftMost - mSpacing;
+		float prevX = baseX;
+		int prev = NO_CARD;
+		int bounce = mBounce;
+
+		for (int i = 0; i < mCount; i++) {
+			if (getCardLeft(i) != mMinLeftMost || i == last) {
+				float newX = baseX - mPaddingLefts[i] + mSpacing;
+
+				// カードが複数ある場合、最後のカードは重ねない
+				if (prev != NO_CARD && i == last) {
+					baseX = prevX + mWidths[prev] - mPaddingRights[prev];
+					newX = baseX - mPaddingLefts[i] + mSpacing;
+					if (baseX < mWidth && (newX + mWidths[i] - mPaddingLefts[i]) > mWidth) {
+						newX = mWidth - mWidths[i] + mPaddingRights[i];
+						bounce = bounce * -1;
+					}
+					mBounceCard = prev;
+				}
+				mTargetX[i] = newX;
+				mAnimated[i] = true;
+				if (mHideUnderCard == NO_CARD) {
+					mHideUnderCard = i;
+				}
+				baseX = newX + mWidths[i] - mPaddingRights[i];
+				prevX = newX;
+			} else {
+				prevX = mX[i];
+			}
+			prev = i;
+		}
+
+		if (mBounceCard != NO_CARD && getTargetLeft(mBounceCard) == mMinLeftMost) {
+			mBounceDistance = bounce;
+		} else {
+			mBounceCard = NO_CARD;
+		}
+	}
+
+	/**
+	 * 全体的に右へスライドさせる移動先座標を算出します。<p>
+	 * 見えている左端のデッキカードはバウンド対象となり、{@link #getBounceCard()} で返されます。
+	 */
+	void previous() {
+		previous(1);
+	}
+
+	/**
+	 * 全体的に右へスライドさせて、左端にスタックされたデッキカードのうち前面から数えて指定された番目のものを基準に並べる移動先座標を算出します。<p>
+	 * {@code cards} が {@code 1} の場合は {@link #previous()} と同じ結果となり、1 増える毎にスタックされたデッキカードを 1 枚多く見せます。
+	 * スタックされたデッキカードが指定された枚数に満たない場合は、すべてのデッキカードを見せます。
+	 * 基準となるデッキカードはバウンド対象となり、{@link #getBounceCard()} で返されます。
+	 *
+	 * @param cards 基準とするスタックされたデッキカードの前面からの番目 (1 以上)
+	 */
+	void previous(final int cards) {
+		reset();
+
+		// 最後のカード以外で見えている左端のカードとその右座標を取得します。
+		// 左端にスタックされたカードのうち最も前面のものが基準となるため、前面から走査して指定された枚数分見つかった時点で終了します。
+		int base = NO_CARD;
+		float baseX = mMaxLeftMost - mSpacing;
+		int found = 0;
+		for (int i = mCount - 2; i >= 0; i--) {
+			if (isStacked(i) && ++found == cards) {
+				base = i;
+				baseX = getCardRight(i);
+				break;
+			}
+		}
+
+		for (int i = base + 1; i < mCount; i++) {
+			final float newX = baseX - mPaddingLefts[i] + mSpacing;
+			mTargetX[i] = newX;
+			mAnimated[i] = true;
+			baseX = newX + mWidths[i] - mPaddingRights[i];
+		}
+
+		// 見えている左端のカードをバウンドさせます。
+		if (base != NO_CARD) {
+			mBounceCard = base;
+			mBounceDistance = mBounce;
+		}
+	}
+
+	/**
+	 * 最前面のデッキカードの移動量が指定された移動量に最も近くなるような {@link #previous(int)} の引数を算出して返します。
+	 *
+	 * @param distance 最前面のデッキカードの予測移動量 (ピクセル)
+	 * @return {@link #previous(int)} に指定する基準とするスタックされたデッキカードの番目
+	 */
+	int getPreviousCards(final float distance) {
+		final int front = mCount - 1;
+		if (front <= 0) {
+			return 1;
+		}
+
+		int cards = 0;
+		float prevDisplacement = 0F;
+		float chain = 0F;	// 判定中のカードから最前面のカードまでの間にあるカードの幅の合計
+		for (int i = front - 1; i >= 0; i--) {
+			if (isStacked(i)) {
+				final float displacement = getCardRight(i) + chain + mSpacing - mPaddingLefts[front] - mX[front];
+				if (cards > 0 && displacement > distance) {
+					return (displacement - distance) < (distance - prevDisplacement) ? cards + 1 : cards;
+				}
+				cards++;
+				prevDisplacement = displacement;
+			}
+			chain += mWidths[i] - mPaddingLefts[i] - mPaddingRights[i] + mSpacing;
+		}
+
+		// すべてのカードを見せる場合
+		final float displacement = mMaxLeftMost + chain - mPaddingLefts[front] - mX[front];
+		if (cards == 0 || displacement <= distance) {
+			return cards + 1;
+		}
+		return (displacement - distance) < (distance - prevDisplacement) ? cards + 1 : cards;
+	}
+
+	private boolean isStacked(final int card) {
+		return ((int) mX[card] + mPaddingLefts[card]) == mMinLeftMost;
+	}
+
+	/**
+	 * 全体的に右へスライドさせて最初のデッキカードを見せる移動先座標を算出します。
+	 *
+	 * @return 最初のデッキカードが既に見えている場合は {@code false}
+	 */
+	boolean first() {
+		reset();
+		// 最初のカードが見えている場合は何も行いません。
+		if (mCount == 0 || getCardLeft(0) > mMinLeftMost) {
+			return false;
+		}
+
+		float baseX = mMaxLeftMost - mSpacing;
+		for (int i = 0; i < mCount; i++) {
+			final float newX = baseX - mPaddingLefts[i] + mSpacing;
+			mTargetX[i] = newX;
+			mAnimated[i] = true;
+			baseX = newX + mWidths[i] - mPaddingRights[i];
+		}
+		return true;
+	}
+
+	/**
+	 * 左にスタックされていないデッキカードを左端へ重ねる移動先座標を算出します。
+	 */
+	void collapse() {
+		reset();
+		for (int i = 0; i < mCount; i++) {
+			if (getCardLeft(i) > mMinLeftMost) {
+				mTargetX[i] = mMinLeftMost - mPaddingLefts[i];
+				mAnimated[i] = true;
+			}
+		}
+	}
+
+	/**
+	 * 最前面に追加されるデッキカードの X 座標を算出して返します。
+	 *
+	 * @param paddingLeft 追加されるデッキカードの左パディング
+	 * @param paddingRight 追加されるデッキカードの右パディング
+	 * @param width 追加されるデッキカードの幅
+	 * @return 追加されるデッキカードの X 座標
+	 */
+	float getAppendX(final int paddingLeft, final int paddingRight, final int width) {
+		// はじめてのカードの場合
+		if (mCount == 0) {
+			return mMaxLeftMost - paddingLeft;
+		}
+		final int last = mCount - 1;
+		return Math.min(
+				mMinLeftMost - mPaddingLefts[last] + mWidths[last] - mPaddingRights[last] - paddingLeft + mSpacing,
+				mWidth - (width - paddingLeft - paddingRight)
+			);
+	}
+
+	/**
+	 * 指定された移動量に対する移動アニメーションの時間を算出して返します。
+	 *
+	 * @param startX 開始 X 座標
+	 * @param endX 終了 X 座標
+	 * @return 移動アニメーションにかかる時間 (ミリ秒)
+	 */
+	static int duration(final float startX, final float endX) {
+		return Math.min((int) (Math.abs(startX - endX) * 0.00085F * 0.8F * 1000), MAX_DURATION);
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * 計測値の分布を 2 の累乗ごとの区間で数えるヒストグラムを提供します。<p>
+ * 区間の配列は生成時に確保され、値の記録ではメモリの割り当てを行いません。
+ * 百分位数は値が属する区間の上限で近似されるため、誤差は最大で 2 倍となります。
+ * このクラスはスレッドセーフではありません。
+ * 
+ * @author Koji Sugisawa
+ */
+public final class DeckHistogram {
+
+	/**
+	 * 区間の数です。区間 {@code 0} は値 {@code 0} を、区間 {@code i} は {@code 2^(i-1)} 以上 {@code 2^i} 未満の値を数えます。
+	 */
+	private static final int BUCKETS = 64;
+
+	private final long[] mBuckets = new long[BUCKETS];
+	private long mCount;
+	private long mSum;
+	private long mMin = Long.MAX_VALUE;
+	private long mMax = Long.MIN_VALUE;
+
+	/**
+	 * 指定された値を記録します。負の値は {@code 0} として記録します。
+	 * 
+	 * @param value 値
+	 */
+	public void record(final long value) {
+		final long v = Math.max(value, 0L);
+		mBuckets[Math.min(64 - Long.numberOfLeadingZeros(v), BUCKETS - 1)]++;
+		mCount++;
+		mSum += v;
+		if (v < mMin) {
+			mMin = v;
+		}
+		if (v > mMax) {
+			mMax = v;
+		}
+	}
+
+	/**
+	 * 記録された値を消去します。
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			mBuckets[i] = 0L;
+		}
+		mCount = 0L;
+		mSum = 0L;
+		mMin = Long.MAX_VALUE;
+		mMax = Long.MIN_VALUE;
+	}
+
+	public long getCount() { return mCount; }
+	public long getSum() { return mSum; }
+
+	/**
+	 * 記録された値の最小値を返します。
+	 * 
+	 * @return 最小値。値が記録されていない場合は {@code 0}
+	 */
+	public long getMin() { return mCount == 0L ? 0L : mMin; }
+
+	/**
+	 * 記録された値の最大値を返します。
+	 * 
+	 * @return 最大値。値が記録されていない場合は {@code 0}
+	 */
+	public long getMax() { return mCount == 0L ? 0L : mMax; }
+
+	/**
+	 * 記録された値の平均値を返します。
+	 * 
+	 * @return 平均値。値が記録されていない場合は {@code 0}
+	 */
+	public double getMean() { return mCount == 0L ? 0D : (double) mSum / mCount; }
+
+	/**
+	 * 記録された値の百分位数の近似値を返します。<p>
+	 * 指定された割合の値が属する区間の上限を、記録された最大値で制限して返します。
+	 * 
+	 * @param percentile 割合 ({@code 0} 以上 {@code 100} 以下)
+	 * @return 百分位数の近似値。値が記録されていない場合は {@code 0}
+	 */
+	public long getPercentile(final double percentile) {
+		if (mCount == 0L) {
+			return 0L;
+		}
+		final long rank = Math.max((long) Math.ceil(mCount * Math.min(Math.max(percentile, 0D), 100D) / 100D), 1L);
+		long seen = 0L;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += mBuckets[i];
+			if (seen >= rank) {
+				final long upper = i == 0 ? 0L : i >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1L;
+				return Math.max(Math.min(upper, mMax), mMin);
+			}
+		}
+		return mMax;
+	}
+
+	/**
+	 * 指定された区間で数えられた値の数を返します。
+	 * 
+	 * @param bucket 区間 ({@code 0} 以上 {@link #getBucketCount()} 未満)
+	 * @return 値の数
+	 */
+	public long getBucket(final int bucket) { return mBuckets[bucket]; }
+
+	public int getBucketCount() { return BUCKETS; }
+
+}
@@ -19,12 +19,26 @@
 package com.orangesignal.android.decklayout;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import android.app.Activity;
 import android.app.Fragment;
 import android.app.FragmentManager;
 import android.app.FragmentTransaction;
 import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.view.View;
 import android.view.inputmethod.InputMethodManager;
 
@@ -36,9 +50,9 @@ import android.view.inputmethod.InputMethodManager;
 public class DeckManager {
 
 	/**
-	 * デッキカードのフラグメントのリストを保持します。
+	 * デッキカードのフラグメントを位置とタグとルートビューで索引付けして保持します。
 	 */
-	private final ArrayList<Fragment> mFragments = new ArrayList<Fragment>(0);
+	private final DeckFragmentRegistry<Fragment> mRegistry = new DeckFragmentRegistry<Fragment>();
 
 	private int mAddAnimationId;
 	private int mInAnimationId = R.animator.deck_card_rotate_in;
@@ -48,6 +62,41 @@ public class DeckManager {
 	private final Activity mActivity;
 	private final Deck mDeck;
 
+	/**
+	 * キープアライブキャッシュで保持するフラグメントの大きさを算出するためのインタフェースを提供します。
+	 */
+	public static interface FragmentSizer {
+
+		/**
+		 * 指定されたフラグメントの大きさを返します。単位は {@link DeckManager#setKeepAliveBudget(long, FragmentSizer)} の予算と同じです。
+		 * 
+		 * @param fragment フラグメント
+		 * @return フラグメントの大きさ
+		 */
+		long sizeOf(Fragment fragment);
+
+	}
+
+	/**
+	 * キープアライブキャッシュを使用できるかどうかです。
+	 * {@link FragmentTransaction#detach(Fragment)} と {@link FragmentTransaction#attach(Fragment)} は API レベル 13 以降で使用できます。
+	 */
+	private static final boolean KEEP_ALIVE_SUPPORTED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR2;
+
+	/**
+	 * キープアライブキャッシュに保持しているフラグメントのタグを保存する際のキーです。
+	 */
+	private static final String STATE_KEEP_ALIVE_TAGS = "com.orangesignal.android.decklayout.DeckManager.keepAliveTags";
+
+	/**
+	 * 除去せずに切り離したフラグメントをタグごとに最近使用した順で保持します。
+	 */
+	private final LinkedHashMap<String, Fragment> mKeepAlive = new LinkedHashMap<String, Fragment>(0, 0.75F, true);
+	private int mKeepAliveCount;
+	private long mKeepAliveBudget;
+	private long mKeepAliveSize;
+	private FragmentSizer mSizer;
+
 	/**
 	 * コンストラクタです。
 	 * 
@@ -60,128 +109,846 @@ public class DeckManager {
 	}
 
 	/**
-	 * 指定されたフラグメントを指定されたタグで関連付けます。
+	 * 指定されたフラグメントを指定されたタグで関連付けます。<p>
+	 * 指定されたタグのフラグメントがキープアライブキャッシュに保持されている場合は、保持しているフラグメントを再び関連付け、
+	 * 指定されたフラグメントは使用しません。この場合、指定されたフラグメントは {@link FragmentManager} へ追加されず、
+	 * {@link #getFragment(int)} などで返されるのも保持していたフラグメントとなります。
 	 * 
-	 * @param fragment フラグメント
+	 * @param fragment フラグメント。キープアライブキャッシュから再利用された場合は使用されません
 	 * @param tag タグ
+	 * @see #setKeepAliveCount(int)
 	 */
 	public void attach(final Fragment fragment, final String tag) {
-		final InputMethodManager inputMethodManager = (InputMethodManager) mActivity.getSystemService(Context.INPUT_METHOD_SERVICE);
-		if (inputMethodManager != null) {
-			final View currentFocus = mActivity.getCurrentFocus();
-			if (currentFocus != null) {
-				inputMethodManager.hideSoftInputFromWindow(currentFocus.getWindowToken(), 0);
+		DeckTrace.beginSection("DeckManager.attach");
+		try {
+			final DeckTransaction ft = beginTransaction(true);
+
+			final Fragment cached = takeKeepAlive(tag);
+			if (cached != null) {
+				// キープアライブキャッシュに保持されているフラグメントは再生成せずに再び関連付けます。
+				if (mAddAnimationId != 0) {
+					ft.setCustomAnimations(mAddAnimationId, 0);
+				}
+				ft.attach(cached);
+				addFragment(cached, tag);
+			} else if (mRegistry.indexOfTag(tag) == FRAGMENT_NOT_FOUND) {
+				if (mAddAnimationId != 0) {
+					ft.setCustomAnimations(mAddAnimationId, 0);
+				}
+				ft.add(fragment, tag);
+				addFragment(fragment, tag);
+			} else {
+				// 指定されたタグより後ろのフラグメントを除去します。
+				final int current = mRegistry.indexOfTag(tag);
+				for (int i = mRegistry.size() - 1; i > current; i--) {
+					if (mRemoveAnimationId != 0) {
+						ft.setCustomAnimations(0, mRemoveAnimationId);
+					}
+					removeFragment(ft, i);
+				}
+
+				if (mInAnimationId != 0 && mOutAnimationId != 0) {
+					ft.setCustomAnimations(mInAnimationId, mOutAnimationId);
+				}
+				ft.remove(removeFragmentAt(current));
+				ft.add(fragment, tag);
+				addFragment(fragment, tag);
 			}
-		}
 
-		final FragmentManager fm = mActivity.getFragmentManager();
-		final FragmentTransaction ft = fm.beginTransaction();
-		if (ft.isAddToBackStackAllowed()) {
-			ft.disallowAddToBackStack();
+			endTransaction();
+		} finally {
+			DeckTrace.endSection();
 		}
+	}
 
-		if (fm.findFragmentByTag(tag) == null) {
-			if (mAddAnimationId != 0) {
-				ft.setCustomAnimations(mAddAnimationId, 0);
-			}
-			ft.add(mDeck.getId(), fragment, tag);
-			mFragments.add(fragment);
-		} else {
-			// 指定されたタグより後ろのフラグメントを除去します。
-			final int current = getFragmentPositionByTag(tag);
+	/**
+	 * 指定されたビューに紐付くフラグメントから後ろのフラグメントを切り離します。
+	 * 
+	 * @param v フラグメントに紐付くビュー
+	 * @param animation アニメーションを行うかどうか
+	 */
+	public void detach(final View v, final boolean animation) {
+		DeckTrace.beginSection("DeckManager.detach");
+		try {
+			final DeckTransaction ft = beginTransaction(true);
+
+			// 指定された View より後ろのフラグメントを除去します。
+			final int current = getFragmentPositionByView(v);
 			if (current != FRAGMENT_NOT_FOUND) {
-				for (int i = mFragments.size() - 1; i > current; i--) {
-					if (mRemoveAnimationId != 0) {
+				for (int i = mRegistry.size() - 1; i > current; i--) {
+					if (animation && mRemoveAnimationId != 0) {
 						ft.setCustomAnimations(0, mRemoveAnimationId);
 					}
-					ft.remove(mFragments.remove(i));
+					removeFragment(ft, i);
 				}
 			}
 
-			if (mInAnimationId != 0 && mOutAnimationId != 0) {
-				ft.setCustomAnimations(mInAnimationId, mOutAnimationId);
+			endTransaction();
+		} finally {
+			DeckTrace.endSection();
+		}
+	}
+
+	/**
+	 * 指定されたフラグメント以外の状態変更通知を受け取れるすべてのフラグメントへ通知します。
+	 * 
+	 * @param fragment 変更の起因となるフラグメント
+	 */
+	public void notifyDeckChanged(final Fragment fragment) {
+		notifyDeckChanged(fragment, null);
+	}
+
+	/**
+	 * 指定されたフラグメント以外の状態変更通知を受け取れるすべてのフラグメントへ通知します。<p>
+	 * {@link DeckChangeListener} を実装するフラグメントへは、前回の通知以降に関連付けられた位置と切り離された位置、
+	 * および指定されたペイロードのキーを含む {@link DeckChangeSet} を通知します。
+	 * 
+	 * @param fragment 変更の起因となるフラグメント
+	 * @param payload アプリケーションが定義するペイロードのキー。または {@code null}
+	 */
+	public void notifyDeckChanged(final Fragment fragment, final Object payload) {
+		DeckTrace.beginSection("DeckManager.notifyDeckChanged");
+		try {
+			final DeckChangeSet changes = mChanges.build(fragment, payload);
+			final boolean coalesced = mDispatchMode == DISPATCH_COALESCED;
+			final DeckFragmentRegistry<Fragment> registry = mRegistry;
+			final int size = registry.size();
+			for (int i = 0; i < size; i++) {
+				final Fragment f = registry.get(i);
+				if (!f.equals(fragment) && isListener(f)) {
+					if (coalesced) {
+						markChanged(f, changes);
+					} else {
+						deliver(f, changes);
+					}
+				}
 			}
-			if (current != FRAGMENT_NOT_FOUND) {
-				ft.remove(mFragments.remove(current));
+		} finally {
+			DeckTrace.endSection();
+		}
+	}
+
+	private static boolean isListener(final Fragment f) {
+		return f instanceof DeckListener || f instanceof DeckChangeListener;
+	}
+
+	private static void deliver(final Fragment f, final DeckChangeSet changes) {
+		if (f instanceof DeckChangeListener) {
+			((DeckChangeListener) f).onDeckChanged(changes);
+		} else {
+			((DeckListener) f).onDeckChanged();
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// 状態変更通知
+
+	/**
+	 * 前回の状態変更通知以降に関連付けられた位置と切り離された位置を記録します。<p>
+	 * 変更内容を受け取る {@link DeckChangeListener} が関連付けられている間だけ記録します。
+	 */
+	private final DeckChangeSet.Builder mChanges = new DeckChangeSet.Builder();
+
+	/**
+	 * 関連付けられている {@link DeckChangeListener} を実装するフラグメントの数を保持します。
+	 */
+	private int mChangeListenerCount;
+
+	private void addFragment(final Fragment fragment, final String tag) {
+		if (fragment instanceof DeckChangeListener) {
+			mChangeListenerCount++;
+		}
+		if (mChangeListenerCount > 0) {
+			mChanges.added(mRegistry.size());
+		}
+		mRegistry.add(fragment, tag);
+	}
+
+	private Fragment removeFragmentAt(final int position) {
+		final Fragment fragment = mRegistry.remove(position);
+		if (fragment instanceof DeckChangeListener && --mChangeListenerCount == 0) {
+			// 変更内容を受け取るリスナーがいなくなったため、記録を破棄します。
+			mChanges.clear();
+		} else if (mChangeListenerCount > 0) {
+			mChanges.removed(position);
+		}
+		return fragment;
+	}
+
+	/**
+	 * 状態変更通知を {@link #notifyDeckChanged(Fragment)} の呼び出し時に直ちに行うモードです。
+	 */
+	public static final int DISPATCH_SYNC = 0;
+
+	/**
+	 * 状態変更通知をまとめて、次のメッセージ処理でリスナーごとに一度だけ行うモードです。<p>
+	 * まとめられた通知の変更内容は {@link DeckChangeSet} の規則に従って一つにまとめられます。
+	 * {@link IdleDeckListener} を実装するリスナーへは、メインスレッドがアイドル状態になり、かつフラグメントが表示されている時点で通知します。
+	 */
+	public static final int DISPATCH_COALESCED = 1;
+
+	private int mDispatchMode = DISPATCH_SYNC;
+
+	/**
+	 * 状態変更通知を待っているフラグメントとその変更内容を保持します。
+	 */
+	private final ArrayList<Fragment> mChanged = new ArrayList<Fragment>();
+	private final ArrayList<DeckChangeSet> mChangedSets = new ArrayList<DeckChangeSet>();
+	private final ArrayList<Fragment> mIdleChanged = new ArrayList<Fragment>();
+	private final ArrayList<DeckChangeSet> mIdleChangedSets = new ArrayList<DeckChangeSet>();
+	private boolean mDispatchScheduled;
+	private boolean mIdleHandlerAdded;
+
+	private final Runnable mDispatchRunnable = new Runnable() {
+		@Override
+		public void run() {
+			mDispatchScheduled = false;
+			dispatch(mChanged, mChangedSets);
+		}
+	};
+
+	private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+		@Override
+		public boolean queueIdle() {
+			dispatchIdleChanged();
+			mIdleHandlerAdded = !mIdleChanged.isEmpty();
+			return mIdleHandlerAdded;
+		}
+	};
+
+	/**
+	 * 状態変更通知の方法を設定します。デフォルトは {@link #DISPATCH_SYNC} です。
+	 * 
+	 * @param mode {@link #DISPATCH_SYNC} または {@link #DISPATCH_COALESCED}
+	 */
+	public void setDispatchMode(final int mode) {
+		mDispatchMode = mode;
+		if (mode != DISPATCH_COALESCED) {
+			// 通知を待っているフラグメントへは直ちに通知します。
+			if (mDispatchScheduled) {
+				mDispatchScheduled = false;
+				mDeck.removeCallbacks(mDispatchRunnable);
 			}
-			ft.add(mDeck.getId(), fragment, tag);
-			mFragments.add(fragment);
+			dispatch(mChanged, mChangedSets);
+			dispatch(mIdleChanged, mIdleChangedSets);
 		}
+	}
 
-		ft.commit();
+	public int getDispatchMode() { return mDispatchMode; }
+
+	private void markChanged(final Fragment fragment, final DeckChangeSet changes) {
+		final boolean idle = fragment instanceof IdleDeckListener;
+		final ArrayList<Fragment> changed = idle ? mIdleChanged : mChanged;
+		final ArrayList<DeckChangeSet> changedSets = idle ? mIdleChangedSets : mChangedSets;
+		final int i = changed.indexOf(fragment);
+		if (i >= 0) {
+			changedSets.set(i, changedSets.get(i).merge(changes));
+		} else {
+			changed.add(fragment);
+			changedSets.add(changes);
+		}
+
+		if (idle) {
+			if (!mIdleHandlerAdded) {
+				mIdleHandlerAdded = true;
+				Looper.myQueue().addIdleHandler(mIdleHandler);
+			}
+		} else if (!mDispatchScheduled) {
+			mDispatchScheduled = true;
+			mDeck.post(mDispatchRunnable);
+		}
 	}
 
 	/**
-	 * 指定されたビューに紐付くフラグメントから後ろのフラグメントを切り離します。
+	 * 通知を待っているフラグメントへ状態変更を通知します。<p>
+	 * 通知までの間に切り離されたフラグメントへは通知しません。
+	 */
+	private static void dispatch(final ArrayList<Fragment> changed, final ArrayList<DeckChangeSet> changedSets) {
+		if (changed.isEmpty()) {
+			return;
+		}
+		// 通知中に新たに通知を待つフラグメントが追加された場合は、次の機会に通知します。
+		final Fragment[] fragments = changed.toArray(new Fragment[changed.size()]);
+		final DeckChangeSet[] sets = changedSets.toArray(new DeckChangeSet[fragments.length]);
+		changed.clear();
+		changedSets.clear();
+		for (int i = 0; i < fragments.length; i++) {
+			if (fragments[i].isAdded()) {
+				deliver(fragments[i], sets[i]);
+			}
+		}
+	}
+
+	/**
+	 * 通知を待っている {@link IdleDeckListener} のうち、表示されているフラグメントへ状態変更を通知します。
+	 */
+	private void dispatchIdleChanged() {
+		final ArrayList<Fragment> changed = mIdleChanged;
+		final ArrayList<DeckChangeSet> changedSets = mIdleChangedSets;
+		for (int i = 0; i < changed.size(); ) {
+			final Fragment f = changed.get(i);
+			if (!f.isAdded()) {
+				changed.remove(i);
+				changedSets.remove(i);
+			} else if (f.isVisible()) {
+				changed.remove(i);
+				deliver(f, changedSets.remove(i));
+			} else {
+				i++;
+			}
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	// トランザクション
+
+	/**
+	 * フラグメントの操作を記録します。記録された操作は {@link #commitTransaction()} で一つの {@link FragmentTransaction} として適用されます。
+	 */
+	private final DeckTransaction mTransaction = new DeckTransaction();
+
+	/**
+	 * フラグメントの操作をまとめて適用するかどうかを保持します。
+	 */
+	private boolean mBatchingEnabled;
+	private boolean mCommitScheduled;
+
+	/**
+	 * 適用時にソフトウェアキーボードを閉じるかどうかを保持します。
+	 */
+	private boolean mHideSoftInput;
+
+	private final Runnable mCommitRunnable = new Runnable() {
+		@Override
+		public void run() {
+			mCommitScheduled = false;
+			commitTransaction();
+		}
+	};
+
+	/**
+	 * フラグメントの操作をまとめて適用するかどうかを設定します。<p>
+	 * 有効な場合、{@link #attach(Fragment, String)} や {@link #detach(View, boolean)} によるフラグメントの操作は直ちに適用されずに記録され、
+	 * 同じメッセージ処理の間に行われた操作は、次のメッセージ処理で一つのトランザクションとして適用されます。
+	 * 同じバッチの中で追加されたフラグメントが切り離された場合は、追加と切り離しの両方が取り消されます。
+	 * 関連付けられているフラグメントの位置や検索結果は、適用を待たずに直ちに更新されます。
 	 * 
-	 * @param v フラグメントに紐付くビュー
-	 * @param animation アニメーションを行うかどうか
+	 * @param enabled 有効にする場合は {@code true}
 	 */
-	public void detach(final View v, final boolean animation) {
-		final InputMethodManager inputMethodManager = (InputMethodManager) mActivity.getSystemService(Context.INPUT_METHOD_SERVICE);
-		if (inputMethodManager != null) {
-			final View currentFocus = mActivity.getCurrentFocus();
-			if (currentFocus != null) {
-				inputMethodManager.hideSoftInputFromWindow(currentFocus.getWindowToken(), 0);
+	public void setBatchingEnabled(final boolean enabled) {
+		mBatchingEnabled = enabled;
+		if (!enabled) {
+			executePendingOperations();
+		}
+	}
+
+	public boolean isBatchingEnabled() { return mBatchingEnabled; }
+
+	/**
+	 * 記録されているフラグメントの操作を直ちに適用します。
+	 */
+	public void executePendingOperations() {
+		if (mCommitScheduled) {
+			mCommitScheduled = false;
+			mDeck.removeCallbacks(mCommitRunnable);
+		}
+		commitTransaction();
+	}
+
+	private DeckTransaction beginTransaction(final boolean hideSoftInput) {
+		mHideSoftInput |= hideSoftInput;
+		// 操作ごとのアニメーションは個別のトランザクションと同様に、何も設定されていない状態から始めます。
+		mTransaction.setCustomAnimations(0, 0);
+		return mTransaction;
+	}
+
+	private void endTransaction() {
+		if (mDraining) {
+			// コマンドの実行中は、すべてのコマンドの実行後にまとめて適用します。
+			return;
+		}
+		if (!mBatchingEnabled) {
+			commitTransaction();
+		} else if (!mCommitScheduled) {
+			mCommitScheduled = true;
+			mDeck.post(mCommitRunnable);
+		}
+	}
+
+	/**
+	 * 記録されているフラグメントの操作を一つのトランザクションとして適用します。
+	 */
+	private void commitTransaction() {
+		if (mHideSoftInput) {
+			mHideSoftInput = false;
+			final InputMethodManager inputMethodManager = (InputMethodManager) mActivity.getSystemService(Context.INPUT_METHOD_SERVICE);
+			if (inputMethodManager != null) {
+				final View currentFocus = mActivity.getCurrentFocus();
+				if (currentFocus != null) {
+					inputMethodManager.hideSoftInputFromWindow(currentFocus.getWindowToken(), 0);
+				}
 			}
 		}
 
+		final DeckTransaction transaction = mTransaction;
+		if (transaction.isEmpty()) {
+			transaction.clear();
+			return;
+		}
 		final FragmentManager fm = mActivity.getFragmentManager();
 		final FragmentTransaction ft = fm.beginTransaction();
 		if (ft.isAddToBackStackAllowed()) {
 			ft.disallowAddToBackStack();
 		}
+		transaction.apply(ft, mDeck.getId());
+		ft.commit();
+	}
 
-		// 指定された View より後ろのフラグメントを除去します。
-		final int current = getFragmentPositionByView(v);
-		if (current != FRAGMENT_NOT_FOUND) {
-			for (int i = mFragments.size() - 1; i > current; i--) {
-				if (animation && mRemoveAnimationId != 0) {
-					ft.setCustomAnimations(0, mRemoveAnimationId);
-				}
-				ft.remove(mFragments.remove(i));
+	//////////////////////////////////////////////////////////////////////////
+	// コマンドキュー
+
+	/**
+	 * 任意のスレッドから投入されたコマンドを保持します。
+	 */
+	private final ConcurrentLinkedQueue<Command> mCommands = new ConcurrentLinkedQueue<Command>();
+
+	/**
+	 * 最後に投入され、まだ実行を開始していない状態変更通知のコマンドを保持します。<p>
+	 * 他のコマンドが投入された時点と、このコマンドの実行を開始した時点で {@code null} となります。
+	 */
+	private final AtomicReference<NotifyCommand> mLastNotify = new AtomicReference<NotifyCommand>();
+
+	/**
+	 * 実行したコマンドを、フラグメントの操作を適用するまで保持します。
+	 */
+	private final ArrayList<Command> mExecutedCommands = new ArrayList<Command>();
+
+	/**
+	 * 投入されたコマンドです。<p>
+	 * コマンドの実行と {@link Future} の完了を分け、同じ機会に実行したコマンドのフラグメントの操作を適用した後に完了させます。
+	 */
+	private static class Command extends FutureTask<Void> {
+
+		private final Runnable mCommand;
+		private Throwable mFailure;
+
+		Command(final Runnable command) {
+			super(command, null);
+			mCommand = command;
+		}
+
+		/**
+		 * コマンドを実行します。コマンドで発生した例外は完了時に {@link Future} へ格納されます。
+		 * 
+		 * @return 実行した場合は {@code true}。取り消されていた場合は {@code false}
+		 */
+		boolean execute() {
+			if (isDone()) {
+				return false;
+			}
+			try {
+				mCommand.run();
+			} catch (final Throwable t) {
+				mFailure = t;
+			}
+			return true;
+		}
+
+		/**
+		 * {@link Future} を完了させます。
+		 * 
+		 * @param commitFailure フラグメントの操作の適用で発生した例外。または {@code null}
+		 */
+		void complete(final Throwable commitFailure) {
+			final Throwable failure = mFailure != null ? mFailure : commitFailure;
+			if (failure != null) {
+				setException(failure);
+			} else {
+				set(null);
 			}
 		}
 
-		ft.commit();
 	}
 
 	/**
-	 * 指定されたフラグメント以外の状態変更通知を受け取れるすべてのフラグメントへ通知します。
+	 * 状態変更通知のコマンドです。
+	 */
+	private final class NotifyCommand extends Command {
+
+		final Fragment mFragment;
+
+		NotifyCommand(final Fragment fragment) {
+			super(new Runnable() {
+				@Override
+				public void run() {
+					notifyDeckChanged(fragment);
+				}
+			});
+			mFragment = fragment;
+		}
+
+		@Override
+		boolean execute() {
+			// 実行を開始した時点で、以降の通知は新たなコマンドとして投入されるようにします。
+			mLastNotify.compareAndSet(this, null);
+			return super.execute();
+		}
+
+	}
+
+	private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+	private final AtomicBoolean mDrainScheduled = new AtomicBoolean();
+
+	/**
+	 * 一度のコマンドの実行で行われたフラグメントの操作をまとめて適用するかどうかを保持します。
+	 */
+	private boolean mDraining;
+
+	private final Runnable mDrainRunnable = new Runnable() {
+		@Override
+		public void run() {
+			drainCommands();
+		}
+	};
+
+	/**
+	 * {@link #attach(Fragment, String)} を行うコマンドをメインスレッドのキューへ投入します。<p>
+	 * このメソッドは任意のスレッドから呼び出すことができ、呼び出し元のスレッドをブロックしません。
+	 * 投入されたコマンドは投入された順にメインスレッドで実行され、同じ機会に実行されたコマンドのフラグメントの操作は一つのトランザクションとして適用されます。
+	 * 返される {@link Future} はトランザクションを確定した後に完了します。
+	 * 
+	 * @param fragment フラグメント
+	 * @param tag タグ
+	 * @return コマンドの完了を待つための {@link Future}
+	 */
+	public Future<Void> postAttach(final Fragment fragment, final String tag) {
+		return enqueue(new Runnable() {
+			@Override
+			public void run() {
+				attach(fragment, tag);
+			}
+		});
+	}
+
+	/**
+	 * {@link #detach(View, boolean)} を行うコマンドをメインスレッドのキューへ投入します。<p>
+	 * このメソッドは任意のスレッドから呼び出すことができます。
+	 * 
+	 * @param v フラグメントに紐付くビュー
+	 * @param animation アニメーションを行うかどうか
+	 * @return コマンドの完了を待つための {@link Future}
+	 * @see #postAttach(Fragment, String)
+	 */
+	public Future<Void> postDetach(final View v, final boolean animation) {
+		return enqueue(new Runnable() {
+			@Override
+			public void run() {
+				detach(v, animation);
+			}
+		});
+	}
+
+	/**
+	 * {@link #notifyDeckChanged(Fragment)} を行うコマンドをメインスレッドのキューへ投入します。<p>
+	 * このメソッドは任意のスレッドから呼び出すことができます。
+	 * キューの末尾に同じフラグメントを起因とする実行待ちの状態変更通知のコマンドがある場合は新たに投入せず、そのコマンドの {@link Future} を返します。
+	 * 後から投入された他のコマンドより前にある通知とはまとめないため、通知は常にそれまでに投入されたコマンドの実行後に行われます。
 	 * 
 	 * @param fragment 変更の起因となるフラグメント
+	 * @return コマンドの完了を待つための {@link Future}
 	 */
-	public void notifyDeckChanged(final Fragment fragment) {
-		for (final Fragment f : mFragments) {
-			if (!f.equals(fragment) && f instanceof DeckListener) {
-				final DeckListener l = (DeckListener) f;
-				l.onDeckChanged();
+	public Future<Void> postNotifyDeckChanged(final Fragment fragment) {
+		// 後から投入されたコマンドを追い越して通知しないよう、キューの末尾の通知とだけまとめます。
+		// 比較と交換が成功した時点でその通知はまだ末尾にあり、実行を開始していません。
+		final NotifyCommand last = mLastNotify.get();
+		if (last != null && last.mFragment == fragment && mLastNotify.compareAndSet(last, last)) {
+			return last;
+		}
+		final NotifyCommand command = new NotifyCommand(fragment);
+		mLastNotify.set(command);
+		mCommands.offer(command);
+		scheduleDrain();
+		return command;
+	}
+
+	private Future<Void> enqueue(final Runnable runnable) {
+		final Command command = new Command(runnable);
+		mCommands.offer(command);
+		mLastNotify.set(null);
+		scheduleDrain();
+		return command;
+	}
+
+	private void scheduleDrain() {
+		if (mDrainScheduled.compareAndSet(false, true)) {
+			mMainHandler.post(mDrainRunnable);
+		}
+	}
+
+	/**
+	 * 投入されたコマンドをメインスレッドで順に実行します。<p>
+	 * 実行中に投入されたコマンドも同じ機会に実行します。
+	 * 各コマンドの {@link Future} は、実行したすべてのコマンドのフラグメントの操作を {@link FragmentTransaction} として確定した後に完了させます。
+	 * 確定に失敗した場合は、その例外を各コマンドの {@link Future} へ格納してから送出します。
+	 */
+	private void drainCommands() {
+		mDrainScheduled.set(false);
+		final ArrayList<Command> executed = mExecutedCommands;
+		RuntimeException commitFailure = null;
+		mDraining = true;
+		try {
+			Command command;
+			while ((command = mCommands.poll()) != null) {
+				if (command.execute()) {
+					executed.add(command);
+				}
+			}
+		} finally {
+			mDraining = false;
+			try {
+				endTransaction();
+			} catch (final RuntimeException e) {
+				commitFailure = e;
+			}
+			final int size = executed.size();
+			for (int i = 0; i < size; i++) {
+				executed.get(i).complete(commitFailure);
 			}
+			executed.clear();
+		}
+		if (commitFailure != null) {
+			throw commitFailure;
 		}
 	}
 
-	private static final int FRAGMENT_NOT_FOUND = -1;
+	//////////////////////////////////////////////////////////////////////////
+	// キープアライブキャッシュ
 
-	private int getFragmentPositionByView(final View v) {
-		int i = 0;
-		for (final Fragment f : mFragments) {
-			if (v.equals(f.getView())) {
-				return i;
+	/**
+	 * 切り離したフラグメントを除去せずに保持する最大数を設定します。<p>
+	 * {@code 0} より大きい値を設定すると、後ろのフラグメントを切り離す際に {@link FragmentTransaction#remove(Fragment)} ではなく
+	 * {@link FragmentTransaction#detach(Fragment)} を使用してフラグメントのインスタンスとそのフィールドを保持し、
+	 * 同じタグで再び {@link #attach(Fragment, String)} された場合は保持しているフラグメントを再利用します。
+	 * 切り離したフラグメントのビュー階層は破棄されるため、再び関連付けた際には {@link Fragment#onCreateView(android.view.LayoutInflater, android.view.ViewGroup, Bundle)} が再び呼び出されます。
+	 * 保持数を超えた場合は最も長く使用されていないフラグメントから除去します。デフォルトは {@code 0} (保持しない) です。<p>
+	 * API レベル 13 未満では {@link FragmentTransaction#detach(Fragment)} を使用できないため、保持数に関わらずフラグメントは除去されます。
+	 * アクティビティが再生成される場合は {@link #onSaveInstanceState(Bundle)} と {@link #onRestoreInstanceState(Bundle)} を呼び出してください。
+	 * 
+	 * @param count 保持する最大数
+	 */
+	public void setKeepAliveCount(final int count) {
+		mKeepAliveCount = Math.max(count, 0);
+		trimKeepAlive();
+	}
+
+	public int getKeepAliveCount() { return mKeepAliveCount; }
+
+	/**
+	 * 切り離したフラグメントを除去せずに保持する大きさの予算を設定します。<p>
+	 * 保持しているフラグメントの大きさの合計が予算を超えた場合は、最も長く使用されていないフラグメントから除去します。
+	 * 保持数は {@link #setKeepAliveCount(int)} で有効にする必要があります。
+	 * 
+	 * @param budget 予算。{@code 0} の場合は大きさで制限しません
+	 * @param sizer フラグメントの大きさを算出するインタフェース
+	 */
+	public void setKeepAliveBudget(final long budget, final FragmentSizer sizer) {
+		mKeepAliveBudget = Math.max(budget, 0L);
+		mSizer = sizer;
+		mKeepAliveSize = 0L;
+		for (final Fragment f : mKeepAlive.values()) {
+			mKeepAliveSize += sizeOf(f);
+		}
+		trimKeepAlive();
+	}
+
+	/**
+	 * キープアライブキャッシュに保持しているすべてのフラグメントを除去します。
+	 */
+	public void clearKeepAlive() {
+		if (mKeepAlive.isEmpty()) {
+			return;
+		}
+		final DeckTransaction ft = beginTransaction(false);
+		for (final Fragment f : mKeepAlive.values()) {
+			ft.remove(f);
+		}
+		mKeepAlive.clear();
+		mKeepAliveSize = 0L;
+		endTransaction();
+	}
+
+	/**
+	 * キープアライブキャッシュに保持しているフラグメントのタグを保存します。<p>
+	 * 切り離したフラグメントは {@link FragmentManager} に登録されたままアクティビティとともに再生成されるため、
+	 * {@link Activity#onSaveInstanceState(Bundle)} から呼び出してください。
+	 * 
+	 * @param outState 状態を保存する {@link Bundle}
+	 * @see #onRestoreInstanceState(Bundle)
+	 */
+	public void onSaveInstanceState(final Bundle outState) {
+		if (!mKeepAlive.isEmpty()) {
+			outState.putStringArrayList(STATE_KEEP_ALIVE_TAGS, new ArrayList<String>(mKeepAlive.keySet()));
+		}
+	}
+
+	/**
+	 * {@link #onSaveInstanceState(Bundle)} で保存したタグから、再生成されたフラグメントをキープアライブキャッシュへ戻します。<p>
+	 * 戻したフラグメントは保持数と予算に従って除去されるため、{@link #setKeepAliveCount(int)} と {@link #setKeepAliveBudget(long, FragmentSizer)} の後に呼び出してください。
+	 * 呼び出さない場合、再生成されたフラグメントは切り離されたまま {@link FragmentManager} に残ります。
+	 * 
+	 * @param savedInstanceState 状態を保存した {@link Bundle}。または {@code null}
+	 */
+	public void onRestoreInstanceState(final Bundle savedInstanceState) {
+		if (savedInstanceState == null) {
+			return;
+		}
+		final ArrayList<String> tags = savedInstanceState.getStringArrayList(STATE_KEEP_ALIVE_TAGS);
+		if (tags == null) {
+			return;
+		}
+		final FragmentManager fm = mActivity.getFragmentManager();
+		for (final String tag : tags) {
+			final Fragment f = fm.findFragmentByTag(tag);
+			if (f != null && f.isDetached() && !mKeepAlive.containsKey(tag)) {
+				mKeepAlive.put(tag, f);
+				mKeepAliveSize += sizeOf(f);
 			}
-			i++;
 		}
-		return FRAGMENT_NOT_FOUND;
+		trimKeepAlive();
+	}
+
+	/**
+	 * 指定された位置のフラグメントを除去します。キープアライブキャッシュが有効な場合は切り離して保持します。
+	 * 
+	 * @param ft フラグメントの操作の記録
+	 * @param position 位置
+	 */
+	private void removeFragment(final DeckTransaction ft, final int position) {
+		final String tag = mRegistry.getTag(position);
+		final Fragment fragment = removeFragmentAt(position);
+		if (!KEEP_ALIVE_SUPPORTED || mKeepAliveCount <= 0 || tag == null) {
+			ft.remove(fragment);
+			return;
+		}
+		if (ft.detach(fragment)) {
+			// 同じバッチで追加されたフラグメントは一度も関連付けられていないため保持しません。
+			return;
+		}
+		final Fragment old = mKeepAlive.put(tag, fragment);
+		if (old != null && old != fragment) {
+			mKeepAliveSize -= sizeOf(old);
+			ft.remove(old);
+		}
+		mKeepAliveSize += sizeOf(fragment);
+		evictKeepAlive(ft);
+	}
+
+	/**
+	 * 指定されたタグのフラグメントをキープアライブキャッシュから取り出します。
+	 * 
+	 * @param tag タグ
+	 * @return フラグメント。または {@code null}
+	 */
+	private Fragment takeKeepAlive(final String tag) {
+		final Fragment fragment = mKeepAlive.remove(tag);
+		if (fragment != null) {
+			mKeepAliveSize -= sizeOf(fragment);
+		}
+		return fragment;
+	}
+
+	private void trimKeepAlive() {
+		if (mKeepAlive.isEmpty()) {
+			return;
+		}
+		final DeckTransaction ft = beginTransaction(false);
+		evictKeepAlive(ft);
+		endTransaction();
+	}
+
+	/**
+	 * 保持数または予算を超えている間、最も長く使用されていないフラグメントから除去します。
+	 * 
+	 * @param ft フラグメントの操作の記録
+	 */
+	private void evictKeepAlive(final DeckTransaction ft) {
+		final Iterator<Map.Entry<String, Fragment>> it = mKeepAlive.entrySet().iterator();
+		while (it.hasNext() && (mKeepAlive.size() > mKeepAliveCount || (mKeepAliveBudget > 0L && mKeepAliveSize > mKeepAliveBudget))) {
+			final Fragment f = it.next().getValue();
+			it.remove();
+			mKeepAliveSize -= sizeOf(f);
+			ft.remove(f);
+		}
+	}
+
+	private long sizeOf(final Fragment fragment) {
+		return mSizer == null ? 0L : mSizer.sizeOf(fragment);
 	}
 
-	private int getFragmentPositionByTag(final String tag) {
-		int i = 0;
-		for (final Fragment f : mFragments) {
-			if (tag.equals(f.getTag())) {
-				return i;
+	//////////////////////////////////////////////////////////////////////////
+	// 検索
+
+	private static final int FRAGMENT_NOT_FOUND = DeckFragmentRegistry.NOT_FOUND;
+
+	private int getFragmentPositionByView(final View v) {
+		final DeckFragmentRegistry<Fragment> registry = mRegistry;
+		int position = registry.indexOfView(v);
+		if (position != FRAGMENT_NOT_FOUND && registry.get(position).getView() == v) {
+			return position;
+		}
+		// フラグメントのビューは追加後に生成され、またフラグメントが作り直すこともあるため、現在のビューで索引付けし直します。
+		position = FRAGMENT_NOT_FOUND;
+		final int size = registry.size();
+		for (int i = 0; i < size; i++) {
+			final View view = registry.get(i).getView();
+			if (registry.getView(i) != view) {
+				registry.setView(i, view);
+			}
+			if (view != null && view == v) {
+				position = i;
 			}
-			i++;
 		}
-		return FRAGMENT_NOT_FOUND;
+		return position;
+	}
+
+	/**
+	 * 指定されたタグのフラグメントの位置を返します。
+	 * 
+	 * @param tag タグ
+	 * @return 位置。見つからない場合は {@code -1}
+	 */
+	public int getFragmentPosition(final String tag) {
+		return mRegistry.indexOfTag(tag);
+	}
+
+	/**
+	 * 関連付けられているフラグメントの数を返します。
+	 * 
+	 * @return フラグメントの数
+	 */
+	public int getFragmentCount() {
+		return mRegistry.size();
+	}
+
+	/**
+	 * 指定された位置のフラグメントを返します。
+	 * 
+	 * @param position 位置
+	 * @return フラグメント
+	 */
+	public Fragment getFragment(final int position) {
+		return mRegistry.get(position);
+	}
+
+	/**
+	 * 指定された位置より後ろのフラグメントのリストを返します。<p>
+	 * 返されるリストは呼び出し時点の複製であり、その後のデッキカードの追加や除去の影響を受けません。
+	 * 
+	 * @param position 位置
+	 * @return 指定された位置より後ろのフラグメントのリスト
+	 */
+	public List<Fragment> getFragmentsAfter(final int position) {
+		return mRegistry.after(position);
 	}
 
 	public void setAddAnimation(final int add) {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * {@link Deck} の性能計測値を受け取るシンクを提供します。<p>
+ * {@link Deck#setMetrics(DeckMetrics)} で設定された場合のみ計測が行われ、設定されていない場合は時刻の取得も含めて何も行われません。
+ * すべてのメソッドは UI スレッドから描画やタッチイベント処理の途中で呼び出されるため、実装はメモリの割り当てや重い処理を避けるべきです。
+ * 
+ * @author Koji Sugisawa
+ * @see DeckMetricsRecorder
+ */
+public interface DeckMetrics {
+
+	/**
+	 * {@link Deck#onMeasure(int, int)} の処理を表す区間です。
+	 */
+	int SECTION_MEASURE = 0;
+
+	/**
+	 * {@link Deck#onLayout(boolean, int, int, int, int)} の処理を表す区間です。
+	 */
+	int SECTION_LAYOUT = 1;
+
+	/**
+	 * ドラッグ中の ACTION_MOVE で累積した移動量を、描画の直前にデッキカードへ反映する処理を表す区間です。
+	 */
+	int SECTION_DRAG = 2;
+
+	/**
+	 * 次のデッキカードを見せる遷移です。
+	 */
+	int TRANSITION_NEXT = 0;
+
+	/**
+	 * 前のデッキカードを見せる遷移です。
+	 */
+	int TRANSITION_PREVIOUS = 1;
+
+	/**
+	 * 最初のデッキカードを見せる遷移です。
+	 */
+	int TRANSITION_FIRST = 2;
+
+	/**
+	 * {@link Deck#FLING_MODE_PHYSICS} でのフリングによる遷移です。
+	 */
+	int TRANSITION_FLING = 3;
+
+	/**
+	 * 指定された区間の処理が終了した場合に呼び出されます。
+	 * 
+	 * @param section 区間
+	 * @param durationNanos 処理時間 (ナノ秒)
+	 */
+	void onSection(int section, long durationNanos);
+
+	/**
+	 * 遷移のアニメーションのフレームが描画される度に呼び出されます。
+	 * 
+	 * @param transition 遷移
+	 * @param intervalNanos 前のフレームからの間隔 (ナノ秒)
+	 * @param droppedFrames 前のフレームとの間で欠落したフレームの数
+	 */
+	void onTransitionFrame(int transition, long intervalNanos, int droppedFrames);
+
+	/**
+	 * 遷移のアニメーションが終了した場合に呼び出されます。
+	 * 
+	 * @param transition 遷移
+	 * @param frames 描画されたフレームの数
+	 * @param droppedFrames 欠落したフレームの数
+	 */
+	void onTransitionEnd(int transition, int frames, int droppedFrames);
+
+	/**
+	 * アニメーションのフレーム毎に、アニメーション中のデッキカードの数を通知します。
+	 * 
+	 * @param count アニメーション中のデッキカードの数
+	 */
+	void onRunningAnimators(int count);
+
+	/**
+	 * 描画の度に、描画対象のデッキカードの数を通知します。
+	 * 
+	 * @param count 描画対象のデッキカードの数
+	 */
+	void onVisibleCards(int count);
+
+}
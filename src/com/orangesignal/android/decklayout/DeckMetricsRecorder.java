@@ -0,0 +1,184 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * {@link DeckMetrics} の計測値をヒストグラムへ記録する既定の実装を提供します。<p>
+ * ヒストグラムと集計値はすべて生成時に確保され、記録ではメモリの割り当てを行わないため、製品版でも使用できます。
+ * 記録と参照は UI スレッドから行う必要があります。
+ * <pre>
+ * final DeckMetricsRecorder recorder = new DeckMetricsRecorder();
+ * deck.setMetrics(recorder);
+ * ...
+ * final long p90 = recorder.getSectionHistogram(DeckMetrics.SECTION_DRAG).getPercentile(90);
+ * </pre>
+ * 
+ * @author Koji Sugisawa
+ */
+public class DeckMetricsRecorder implements DeckMetrics {
+
+	private static final int SECTIONS = 3;
+	private static final int TRANSITIONS = 4;
+
+	private final DeckHistogram[] mSections = new DeckHistogram[SECTIONS];
+	private final DeckHistogram mRunningAnimators = new DeckHistogram();
+	private final DeckHistogram mVisibleCards = new DeckHistogram();
+
+	/**
+	 * 遷移毎の回数、フレームの数と欠落したフレームの数を保持します。
+	 */
+	private final long[] mTransitions = new long[TRANSITIONS];
+	private final long[] mTransitionFrames = new long[TRANSITIONS];
+	private final long[] mTransitionDroppedFrames = new long[TRANSITIONS];
+
+	/**
+	 * 遷移毎のフレーム間隔 (ナノ秒) のヒストグラムと、前のフレームとの間でフレームが欠落したフレームの数を保持します。
+	 */
+	private final DeckHistogram[] mTransitionFrameIntervals = new DeckHistogram[TRANSITIONS];
+	private final long[] mTransitionJankyFrames = new long[TRANSITIONS];
+
+	/**
+	 * コンストラクタです。
+	 */
+	public DeckMetricsRecorder() {
+		for (int i = 0; i < SECTIONS; i++) {
+			mSections[i] = new DeckHistogram();
+		}
+		for (int i = 0; i < TRANSITIONS; i++) {
+			mTransitionFrameIntervals[i] = new DeckHistogram();
+		}
+	}
+
+	@Override
+	public void onSection(final int section, final long durationNanos) {
+		if (section >= 0 && section < SECTIONS) {
+			mSections[section].record(durationNanos);
+		}
+	}
+
+	@Override
+	public void onTransitionFrame(final int transition, final long intervalNanos, final int droppedFrames) {
+		if (transition >= 0 && transition < TRANSITIONS) {
+			mTransitionFrameIntervals[transition].record(intervalNanos);
+			if (droppedFrames > 0) {
+				mTransitionJankyFrames[transition]++;
+			}
+		}
+	}
+
+	@Override
+	public void onTransitionEnd(final int transition, final int frames, final int droppedFrames) {
+		if (transition >= 0 && transition < TRANSITIONS) {
+			mTransitions[transition]++;
+			mTransitionFrames[transition] += frames;
+			mTransitionDroppedFrames[transition] += droppedFrames;
+		}
+	}
+
+	@Override
+	public void onRunningAnimators(final int count) {
+		mRunningAnimators.record(count);
+	}
+
+	@Override
+	public void onVisibleCards(final int count) {
+		mVisibleCards.record(count);
+	}
+
+	/**
+	 * 記録されたすべての計測値を消去します。
+	 */
+	public void reset() {
+		for (int i = 0; i < SECTIONS; i++) {
+			mSections[i].reset();
+		}
+		mRunningAnimators.reset();
+		mVisibleCards.reset();
+		for (int i = 0; i < TRANSITIONS; i++) {
+			mTransitions[i] = 0L;
+			mTransitionFrames[i] = 0L;
+			mTransitionDroppedFrames[i] = 0L;
+			mTransitionFrameIntervals[i].reset();
+			mTransitionJankyFrames[i] = 0L;
+		}
+	}
+
+	/**
+	 * 指定された区間の処理時間 (ナノ秒) のヒストグラムを返します。
+	 * 
+	 * @param section {@link DeckMetrics#SECTION_MEASURE}、{@link DeckMetrics#SECTION_LAYOUT} または {@link DeckMetrics#SECTION_DRAG}
+	 * @return ヒストグラム
+	 */
+	public DeckHistogram getSectionHistogram(final int section) { return mSections[section]; }
+
+	/**
+	 * 指定された遷移のアニメーションのフレーム間隔 (ナノ秒) のヒストグラムを返します。
+	 * 
+	 * @param transition 遷移
+	 * @return ヒストグラム
+	 */
+	public DeckHistogram getFrameIntervalHistogram(final int transition) { return mTransitionFrameIntervals[transition]; }
+
+	/**
+	 * アニメーション中のデッキカードの数のヒストグラムを返します。
+	 * 
+	 * @return ヒストグラム
+	 */
+	public DeckHistogram getRunningAnimatorsHistogram() { return mRunningAnimators; }
+
+	/**
+	 * 描画対象のデッキカードの数のヒストグラムを返します。
+	 * 
+	 * @return ヒストグラム
+	 */
+	public DeckHistogram getVisibleCardsHistogram() { return mVisibleCards; }
+
+	/**
+	 * 指定された遷移が終了した回数を返します。
+	 * 
+	 * @param transition 遷移
+	 * @return 回数
+	 */
+	public long getTransitionCount(final int transition) { return mTransitions[transition]; }
+
+	/**
+	 * 指定された遷移で描画されたフレームの総数を返します。
+	 * 
+	 * @param transition 遷移
+	 * @return フレームの総数
+	 */
+	public long getTransitionFrames(final int transition) { return mTransitionFrames[transition]; }
+
+	/**
+	 * 指定された遷移で欠落したフレームの総数を返します。
+	 * 
+	 * @param transition 遷移
+	 * @return 欠落したフレームの総数
+	 */
+	public long getTransitionDroppedFrames(final int transition) { return mTransitionDroppedFrames[transition]; }
+
+	/**
+	 * 指定された遷移で、前のフレームとの間でフレームが欠落したフレームの数を返します。
+	 * 
+	 * @param transition 遷移
+	 * @return 前のフレームとの間でフレームが欠落したフレームの数
+	 */
+	public long getTransitionJankyFrames(final int transition) { return mTransitionJankyFrames[transition]; }
+
+}
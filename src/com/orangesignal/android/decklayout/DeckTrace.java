@@ -0,0 +1,197 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.lang.reflect.Method;
+
+/**
+ * {@link Deck} と {@link DeckManager} のトレース区間を {@link DeckTracer} へ出力する機能を提供します。<p>
+ * トレーサーが設定されていない場合、各メソッドは何も出力しませんが、呼び出し側から完全に取り除かれるわけではなく、
+ * 区間毎に静的フィールドの読み込みと分岐が 1 回ずつ残ります (呼び出しがインライン化されない場合はメソッド呼び出しも残ります)。
+ * {@link #enableSystemTracing()} で {@code android.os.Trace} へ出力すると、区間を Systrace や Perfetto で確認できます。
+ * JVM 上のテストでは {@link #setTracer(DeckTracer)} で独自のトレーサーを設定して区間を取得できます。
+ * 
+ * @author Koji Sugisawa
+ */
+public final class DeckTrace {
+
+	/**
+	 * {@code android.os.Trace} の非公開の非同期区間のメソッドで使用するトレースタグ ({@code TRACE_TAG_VIEW}) です。
+	 */
+	private static final long TRACE_TAG_VIEW = 1L << 3;
+
+	private static DeckTracer sTracer;
+
+	private DeckTrace() {}
+
+	/**
+	 * トレース区間を出力するトレーサーを設定します。
+	 * 
+	 * @param tracer トレーサー。または {@code null} (出力しない場合)
+	 */
+	public static void setTracer(final DeckTracer tracer) { sTracer = tracer; }
+	public static DeckTracer getTracer() { return sTracer; }
+
+	/**
+	 * トレース区間が出力されるかどうかを返します。
+	 * 
+	 * @return トレーサーが設定されている場合は {@code true}
+	 */
+	public static boolean isEnabled() { return sTracer != null; }
+
+	/**
+	 * {@code android.os.Trace} へ出力するトレーサーを設定します。<p>
+	 * {@code android.os.Trace} は API レベル 18 以降で使用できるため、リフレクションで呼び出します。
+	 * 非同期区間は公開 API (API レベル 29 以降) または非公開 API がある場合のみ出力されます。
+	 * リフレクションによる呼び出しは引数の配列を割り当てるため、計測のためのビルドでのみ有効にしてください。
+	 * 
+	 * @return 設定できた場合は {@code true}。{@code android.os.Trace} が使用できない場合は {@code false}
+	 */
+	public static boolean enableSystemTracing() {
+		final DeckTracer tracer = SystemTracer.create();
+		if (tracer == null) {
+			return false;
+		}
+		sTracer = tracer;
+		return true;
+	}
+
+	static void beginSection(final String name) {
+		final DeckTracer tracer = sTracer;
+		if (tracer != null) {
+			tracer.beginSection(name);
+		}
+	}
+
+	static void endSection() {
+		final DeckTracer tracer = sTracer;
+		if (tracer != null) {
+			tracer.endSection();
+		}
+	}
+
+	static void beginAsyncSection(final String name, final int cookie) {
+		final DeckTracer tracer = sTracer;
+		if (tracer != null) {
+			tracer.beginAsyncSection(name, cookie);
+		}
+	}
+
+	static void endAsyncSection(final String name, final int cookie) {
+		final DeckTracer tracer = sTracer;
+		if (tracer != null) {
+			tracer.endAsyncSection(name, cookie);
+		}
+	}
+
+	/**
+	 * {@code android.os.Trace} のメソッドをリフレクションで呼び出すトレーサーです。
+	 */
+	private static final class SystemTracer implements DeckTracer {
+
+		private final Method mBeginSection;
+		private final Method mEndSection;
+		private final Method mBeginAsyncSection;
+		private final Method mEndAsyncSection;
+
+		/**
+		 * 非同期区間のメソッドが非公開 API (トレースタグを引数に取る) かどうかを保持します。
+		 */
+		private final boolean mTagged;
+
+		private SystemTracer(final Method beginSection, final Method endSection, final Method beginAsyncSection, final Method endAsyncSection, final boolean tagged) {
+			mBeginSection = beginSection;
+			mEndSection = endSection;
+			mBeginAsyncSection = beginAsyncSection;
+			mEndAsyncSection = endAsyncSection;
+			mTagged = tagged;
+		}
+
+		static DeckTracer create() {
+			final Class<?> trace;
+			final Method beginSection;
+			final Method endSection;
+			try {
+				trace = Class.forName("android.os.Trace");
+				beginSection = trace.getMethod("beginSection", String.class);
+				endSection = trace.getMethod("endSection");
+			} catch (final Exception e) {
+				return null;
+			}
+			try {
+				return new SystemTracer(beginSection, endSection,
+						trace.getMethod("beginAsyncSection", String.class, int.class),
+						trace.getMethod("endAsyncSection", String.class, int.class),
+						false);
+			} catch (final Exception e) {
+				// 公開 API がない場合は非公開 API を使用します。
+			}
+			try {
+				return new SystemTracer(beginSection, endSection,
+						trace.getMethod("asyncTraceBegin", long.class, String.class, int.class),
+						trace.getMethod("asyncTraceEnd", long.class, String.class, int.class),
+						true);
+			} catch (final Exception e) {
+				return new SystemTracer(beginSection, endSection, null, null, false);
+			}
+		}
+
+		@Override
+		public void beginSection(final String name) {
+			invoke(mBeginSection, name);
+		}
+
+		@Override
+		public void endSection() {
+			invoke(mEndSection);
+		}
+
+		@Override
+		public void beginAsyncSection(final String name, final int cookie) {
+			if (mBeginAsyncSection != null) {
+				if (mTagged) {
+					invoke(mBeginAsyncSection, TRACE_TAG_VIEW, name, cookie);
+				} else {
+					invoke(mBeginAsyncSection, name, cookie);
+				}
+			}
+		}
+
+		@Override
+		public void endAsyncSection(final String name, final int cookie) {
+			if (mEndAsyncSection != null) {
+				if (mTagged) {
+					invoke(mEndAsyncSection, TRACE_TAG_VIEW, name, cookie);
+				} else {
+					invoke(mEndAsyncSection, name, cookie);
+				}
+			}
+		}
+
+		private static void invoke(final Method method, final Object... args) {
+			try {
+				method.invoke(null, args);
+			} catch (final Exception e) {
+				// トレースの失敗はデッキの動作に影響させません。
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * {@link Deck} と {@link DeckManager} のトレース区間を受け取るシンクを提供します。<p>
+ * {@link DeckTrace#setTracer(DeckTracer)} で設定します。
+ * 区間の開始と終了は同じスレッドで入れ子になるように呼び出されます。
+ * 非同期区間はスレッドや入れ子に関係なく、名前と識別子の組で開始と終了が対応付けられます。
+ * 
+ * @author Koji Sugisawa
+ * @see DeckTrace#enableSystemTracing()
+ */
+public interface DeckTracer {
+
+	/**
+	 * 指定された名前の区間を開始します。
+	 * 
+	 * @param name 区間の名前
+	 */
+	void beginSection(String name);
+
+	/**
+	 * 最後に開始された区間を終了します。
+	 */
+	void endSection();
+
+	/**
+	 * 指定された名前と識別子の非同期区間を開始します。
+	 * 
+	 * @param name 区間の名前
+	 * @param cookie 同じ名前の非同期区間を区別する識別子
+	 */
+	void beginAsyncSection(String name, int cookie);
+
+	/**
+	 * 指定された名前と識別子の非同期区間を終了します。
+	 * 
+	 * @param name 区間の名前
+	 * @param cookie 同じ名前の非同期区間を区別する識別子
+	 */
+	void endAsyncSection(String name, int cookie);
+
+}
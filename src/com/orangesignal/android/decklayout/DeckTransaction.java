@@ -0,0 +1,180 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.util.ArrayList;
+
+import android.app.Fragment;
+import android.app.FragmentTransaction;
+
+/**
+ * {@link DeckManager} のフラグメント操作を記録し、まとめて一つの {@link FragmentTransaction} へ適用します。<p>
+ * 同じ記録の中で追加されたフラグメントが除去された場合は、追加と除去の両方を取り消します。
+ * 同様に、再び関連付けられたフラグメントが切り離された場合は、関連付けと切り離しの両方を取り消します。
+ *
+ * @author Koji Sugisawa
+ */
+final class DeckTransaction {
+
+	private static final int OP_ADD = 0;
+	private static final int OP_REMOVE = 1;
+	private static final int OP_DETACH = 2;
+	private static final int OP_ATTACH = 3;
+
+	/**
+	 * 記録されたフラグメント操作です。
+	 */
+	private static final class Op {
+		final int cmd;
+		final Fragment fragment;
+		final String tag;
+		final int enter;
+		final int exit;
+
+		Op(final int cmd, final Fragment fragment, final String tag, final int enter, final int exit) {
+			this.cmd = cmd;
+			this.fragment = fragment;
+			this.tag = tag;
+			this.enter = enter;
+			this.exit = exit;
+		}
+	}
+
+	private final ArrayList<Op> mOps = new ArrayList<Op>();
+
+	/**
+	 * 以降の操作に適用するアニメーションを保持します。
+	 */
+	private int mEnter;
+	private int mExit;
+
+	void setCustomAnimations(final int enter, final int exit) {
+		mEnter = enter;
+		mExit = exit;
+	}
+
+	void add(final Fragment fragment, final String tag) {
+		mOps.add(new Op(OP_ADD, fragment, tag, mEnter, mExit));
+	}
+
+	void attach(final Fragment fragment) {
+		mOps.add(new Op(OP_ATTACH, fragment, null, mEnter, mExit));
+	}
+
+	/**
+	 * 指定されたフラグメントの除去を記録します。
+	 *
+	 * @param fragment フラグメント
+	 * @return 同じ記録の中で追加されたフラグメントで、追加ごと取り消した場合は {@code true}
+	 */
+	boolean remove(final Fragment fragment) {
+		final int i = indexOf(fragment);
+		if (i >= 0) {
+			final int cmd = mOps.remove(i).cmd;
+			if (cmd == OP_ADD) {
+				return true;
+			}
+		}
+		mOps.add(new Op(OP_REMOVE, fragment, null, mEnter, mExit));
+		return false;
+	}
+
+	/**
+	 * 指定されたフラグメントの切り離しを記録します。
+	 *
+	 * @param fragment フラグメント
+	 * @return 同じ記録の中で追加されたフラグメントで、追加ごと取り消した場合は {@code true}
+	 */
+	boolean detach(final Fragment fragment) {
+		final int i = indexOf(fragment);
+		if (i >= 0) {
+			final int cmd = mOps.remove(i).cmd;
+			if (cmd == OP_ADD) {
+				return true;
+			}
+			if (cmd == OP_ATTACH) {
+				// 切り離されたままになるため、何も行う必要はありません。
+				return false;
+			}
+		}
+		mOps.add(new Op(OP_DETACH, fragment, null, mEnter, mExit));
+		return false;
+	}
+
+	/**
+	 * 指定されたフラグメントに対する追加または関連付けの操作の位置を返します。
+	 */
+	private int indexOf(final Fragment fragment) {
+		for (int i = mOps.size() - 1; i >= 0; i--) {
+			final Op op = mOps.get(i);
+			if (op.fragment == fragment && (op.cmd == OP_ADD || op.cmd == OP_ATTACH)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	boolean isEmpty() {
+		return mOps.isEmpty();
+	}
+
+	/**
+	 * 記録された操作を指定された {@link FragmentTransaction} へ適用し、記録を消去します。
+	 *
+	 * @param ft フラグメントトランザクション
+	 * @param containerViewId フラグメントを追加するコンテナのビュー ID
+	 */
+	void apply(final FragmentTransaction ft, final int containerViewId) {
+		int enter = 0;
+		int exit = 0;
+		final int size = mOps.size();
+		for (int i = 0; i < size; i++) {
+			final Op op = mOps.get(i);
+			if (op.enter != enter || op.exit != exit) {
+				enter = op.enter;
+				exit = op.exit;
+				ft.setCustomAnimations(enter, exit);
+			}
+			switch (op.cmd) {
+				case OP_ADD:
+					ft.add(containerViewId, op.fragment, op.tag);
+					break;
+				case OP_REMOVE:
+					ft.remove(op.fragment);
+					break;
+				case OP_DETACH:
+					ft.detach(op.fragment);
+					break;
+				case OP_ATTACH:
+					ft.attach(op.fragment);
+					break;
+				default:
+					break;
+			}
+		}
+		clear();
+	}
+
+	void clear() {
+		mOps.clear();
+		mEnter = 0;
+		mExit = 0;
+	}
+
+}
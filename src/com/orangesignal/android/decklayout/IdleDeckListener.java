@@ -0,0 +1,29 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+/**
+ * メインスレッドが処理待ちのメッセージを持たず、かつ自身が表示されている時点まで状態変更通知を遅らせる {@link DeckListener} を提供します。<p>
+ * {@link DeckManager#DISPATCH_COALESCED} の場合にのみ有効です。
+ * 
+ * @author Koji Sugisawa
+ * @see DeckManager#setDispatchMode(int)
+ */
+public interface IdleDeckListener extends DeckListener {
+}
@@ -18,8 +18,10 @@
 
 package com.orangesignal.android.decklayout;
 
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Paint;
 import android.graphics.Point;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
@@ -52,6 +54,25 @@ public class ScaledDragShadowBuilder extends View.DragShadowBuilder {
 	 */
 	private final Drawable mBackgroundDrawable;
 
+	/**
+	 * スナップショット用のビットマップのプールを保持します。{@code null} の場合はスナップショットを使用しません。
+	 */
+	private ShadowBitmapPool mSnapshotPool;
+
+	/**
+	 * スナップショットの縮小率 (ビューの何分の 1 の大きさで描画するか) を保持します。
+	 */
+	private int mSnapshotSampleSize = 1;
+
+	/**
+	 * ドラッグ対象のビューを描画したスナップショットと、スナップショットからビューの大きさへの拡大率を保持します。
+	 */
+	private Bitmap mSnapshot;
+	private float mSnapshotScaleX;
+	private float mSnapshotScaleY;
+
+	private final Paint mSnapshotPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
 	/**
 	 * デフォルトのスケーリングサイズとデフォルトの背景色を使用してこのクラスのインスタンスを構築するコンストラクタです。
 	 * 
@@ -115,6 +136,68 @@ public class ScaledDragShadowBuilder extends View.DragShadowBuilder {
 		mBackgroundDrawable = background;
 	}
 
+	/**
+	 * ドラッグ対象のビューを一度だけ縮小したビットマップへ描画し、以降の影の描画ではそのビットマップを再利用するようにします。<p>
+	 * 影の描画の度にビューの階層全体を描画しないため、影の生成時間がデッキカードの複雑さに依存しなくなります。
+	 * スナップショットの大きさがプールの予算を超える場合は、予算に収まるまで縮小率を 2 倍ずつ大きくします。
+	 * ビューの内容が変わった場合やドラッグが終了した場合は {@link #releaseSnapshot()} を呼び出してください。
+	 * 
+	 * @param pool スナップショット用のビットマップのプール。または {@code null} (スナップショットを使用しない場合)
+	 * @param sampleSize 縮小率。{@code 2} の場合はビューの幅と高さの 1/2 の大きさで描画します
+	 */
+	public void setSnapshotPool(final ShadowBitmapPool pool, final int sampleSize) {
+		releaseSnapshot();
+		mSnapshotPool = pool;
+		mSnapshotSampleSize = Math.max(sampleSize, 1);
+	}
+
+	public ShadowBitmapPool getSnapshotPool() { return mSnapshotPool; }
+	public int getSnapshotSampleSize() { return mSnapshotSampleSize; }
+
+	/**
+	 * スナップショットのビットマップをプールへ返却します。次の影の描画ではビューを描画し直します。
+	 */
+	public void releaseSnapshot() {
+		if (mSnapshot != null) {
+			if (mSnapshotPool != null) {
+				mSnapshotPool.release(mSnapshot);
+			}
+			mSnapshot = null;
+		}
+	}
+
+	/**
+	 * スナップショットを返します。まだ描画していない場合はビューを描画して生成します。
+	 * 
+	 * @return スナップショット。生成できない場合は {@code null}
+	 */
+	private Bitmap getSnapshot() {
+		if (mSnapshot != null) {
+			return mSnapshot;
+		}
+		final View v = getView();
+		final int width = v.getWidth();
+		final int height = v.getHeight();
+		if (width <= 0 || height <= 0) {
+			return null;
+		}
+		int sampleSize = mSnapshotSampleSize;
+		while ((long) (width / sampleSize) * (height / sampleSize) > mSnapshotPool.getMaxPixels() && sampleSize < Math.max(width, height)) {
+			sampleSize *= 2;
+		}
+		final Bitmap bitmap = mSnapshotPool.obtain(Math.max(width / sampleSize, 1), Math.max(height / sampleSize, 1));
+		if (bitmap == null) {
+			return null;
+		}
+		final Canvas canvas = new Canvas(bitmap);
+		canvas.scale((float) bitmap.getWidth() / width, (float) bitmap.getHeight() / height);
+		v.draw(canvas);
+		mSnapshot = bitmap;
+		mSnapshotScaleX = (float) width / bitmap.getWidth();
+		mSnapshotScaleY = (float) height / bitmap.getHeight();
+		return bitmap;
+	}
+
 	@Override
 	public void onProvideShadowMetrics(final Point shadowSize, final Point shadowTouchPoint) {
 		final View v = getView();
@@ -132,6 +215,14 @@ public class ScaledDragShadowBuilder extends View.DragShadowBuilder {
 		if (mBackgroundDrawable != null) {
 			mBackgroundDrawable.draw(canvas);
 		}
+		if (mSnapshotPool != null) {
+			final Bitmap snapshot = getSnapshot();
+			if (snapshot != null) {
+				canvas.scale(mScale * mSnapshotScaleX, mScale * mSnapshotScaleY);
+				canvas.drawBitmap(snapshot, 0F, 0F, mSnapshotPaint);
+				return;
+			}
+		}
 		canvas.scale(mScale, mScale);
 		getView().draw(canvas);
 	}
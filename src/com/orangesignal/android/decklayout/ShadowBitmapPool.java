@@ -0,0 +1,127 @@
+/*
+ * Copyright 2011-2014 the original author or authors.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+
+package com.orangesignal.android.decklayout;
+
+import java.util.ArrayList;
+
+import android.graphics.Bitmap;
+
+/**
+ * {@link ScaledDragShadowBuilder} のスナップショット用のビットマップを再利用するプールを提供します。<p>
+ * プールは保持するビットマップの総ピクセル数を予算以下に保ち、予算を超えた場合は最も古く返却されたビットマップから解放します。
+ * 複数の {@link ScaledDragShadowBuilder} で共有できます。このクラスは UI スレッドから使用する必要があります。
+ * 
+ * @author Koji Sugisawa
+ */
+public final class ShadowBitmapPool {
+
+	private final long mMaxPixels;
+
+	/**
+	 * 返却されたビットマップを古い順に保持します。
+	 */
+	private final ArrayList<Bitmap> mBitmaps = new ArrayList<Bitmap>();
+	private long mPixels;
+
+	/**
+	 * コンストラクタです。
+	 * 
+	 * @param maxPixels 保持するビットマップの総ピクセル数の予算。スナップショット 1 枚の大きさの上限にもなります
+	 */
+	public ShadowBitmapPool(final long maxPixels) {
+		mMaxPixels = Math.max(maxPixels, 0L);
+	}
+
+	/**
+	 * 指定された大きさの透明なビットマップを返します。<p>
+	 * 同じ大きさのビットマップがプールにある場合はそれを再利用し、ない場合は新たに生成します。
+	 * 
+	 * @param width 幅
+	 * @param height 高さ
+	 * @return ビットマップ。予算を超える大きさの場合や生成できない場合は {@code null}
+	 */
+	public Bitmap obtain(final int width, final int height) {
+		if (width <= 0 || height <= 0 || (long) width * height > mMaxPixels) {
+			return null;
+		}
+		for (int i = mBitmaps.size() - 1; i >= 0; i--) {
+			final Bitmap bitmap = mBitmaps.get(i);
+			if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+				mBitmaps.remove(i);
+				mPixels -= pixelsOf(bitmap);
+				bitmap.eraseColor(0);
+				return bitmap;
+			}
+		}
+		try {
+			return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+		} catch (final OutOfMemoryError e) {
+			// スナップショットは最適化のため、生成できない場合はビューを直接描画させます。
+			return null;
+		}
+	}
+
+	/**
+	 * 使用が終わったビットマップをプールへ返却します。<p>
+	 * 予算を超えた場合は古いビットマップから解放します。
+	 * 
+	 * @param bitmap ビットマップ
+	 */
+	public void release(final Bitmap bitmap) {
+		if (bitmap == null || bitmap.isRecycled()) {
+			return;
+		}
+		final long pixels = pixelsOf(bitmap);
+		if (pixels > mMaxPixels) {
+			bitmap.recycle();
+			return;
+		}
+		mBitmaps.add(bitmap);
+		mPixels += pixels;
+		while (mPixels > mMaxPixels) {
+			final Bitmap evicted = mBitmaps.remove(0);
+			mPixels -= pixelsOf(evicted);
+			evicted.recycle();
+		}
+	}
+
+	/**
+	 * プールのすべてのビットマップを解放します。
+	 */
+	public void clear() {
+		for (int i = mBitmaps.size() - 1; i >= 0; i--) {
+			mBitmaps.remove(i).recycle();
+		}
+		mPixels = 0L;
+	}
+
+	public long getMaxPixels() { return mMaxPixels; }
+
+	/**
+	 * プールが保持しているビットマップの総ピクセル数を返します。
+	 * 
+	 * @return 総ピクセル数
+	 */
+	public long getPixels() { return mPixels; }
+
+	private static long pixelsOf(final Bitmap bitmap) {
+		return (long) bitmap.getWidth() * bitmap.getHeight();
+	}
+
+}